@@ -0,0 +1,96 @@
+package com.jasonkaranik.backpacksplus.benchmarks;
+
+import com.jasonkaranik.backpacksplus.BackpacksPlus;
+import com.jasonkaranik.backpacksplus.enums.BackpackSize;
+import com.jasonkaranik.backpacksplus.enums.DataKeys;
+import org.bukkit.Material;
+import org.bukkit.craftbukkit.v1_18_R1.inventory.CraftItemStack;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.persistence.PersistentDataContainer;
+import org.bukkit.persistence.PersistentDataType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long it takes to tell whether an inventory item is a backpack.
+ * <p>
+ * The baseline is the check used before backpack data was read with a single metadata copy,
+ * which copied the metadata of an item, including the encoded contents, twice per check.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BackpackItemDetectionBenchmark {
+    @Param({"SMALL", "JUMBO", "TITANIC"})
+    public BackpackSize size;
+
+    private ItemStack backpack;
+
+    private ItemStack head;
+
+    private ItemStack stone;
+
+    @Setup
+    public void setup() {
+        BenchmarkServer.start();
+        backpack = BenchmarkItems.createBackpackItem(size, BenchmarkItems.createContents(size));
+        head = CraftItemStack.asCraftCopy(new ItemStack(Material.PLAYER_HEAD));
+        stone = CraftItemStack.asCraftCopy(new ItemStack(Material.STONE, 64));
+    }
+
+    @Benchmark
+    public boolean baselineBackpack() {
+        return isBackpackItemBaseline(backpack);
+    }
+
+    @Benchmark
+    public boolean backpack() {
+        return BackpacksPlus.isBackpackItem(backpack);
+    }
+
+    @Benchmark
+    public boolean baselinePlainHead() {
+        return isBackpackItemBaseline(head);
+    }
+
+    @Benchmark
+    public boolean plainHead() {
+        return BackpacksPlus.isBackpackItem(head);
+    }
+
+    @Benchmark
+    public boolean baselineOtherItem() {
+        return isBackpackItemBaseline(stone);
+    }
+
+    @Benchmark
+    public boolean otherItem() {
+        return BackpacksPlus.isBackpackItem(stone);
+    }
+
+    private static boolean isBackpackItemBaseline(ItemStack item) {
+        if (item != null) {
+            if (item.getType() == Material.PLAYER_HEAD) {
+                if (item.hasItemMeta()) {
+                    PersistentDataContainer container = item.getItemMeta().getPersistentDataContainer();
+                    return container.has(DataKeys.MARKER.getKey(), PersistentDataType.BYTE) || container.has(DataKeys.LEGACY_DATA.getKey(), PersistentDataType.STRING);
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,80 @@
+package com.jasonkaranik.backpacksplus.benchmarks;
+
+import com.jasonkaranik.backpacksplus.enums.BackpackColor;
+import com.jasonkaranik.backpacksplus.enums.BackpackSize;
+import com.jasonkaranik.backpacksplus.enums.DataKeys;
+import com.jasonkaranik.backpacksplus.utils.ItemStackCodec;
+import com.jasonkaranik.backpacksplus.utils.Utils;
+import org.bukkit.Material;
+import org.bukkit.craftbukkit.v1_18_R1.inventory.CraftItemStack;
+import org.bukkit.enchantments.Enchantment;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.inventory.meta.SkullMeta;
+import org.bukkit.persistence.PersistentDataContainer;
+import org.bukkit.persistence.PersistentDataType;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Creates the backpacks and backpack contents the benchmarks work on.
+ * <p>
+ * Contents are a repeating mix of plain stacks, enchanted tools, named items and empty
+ * slots, so that encoded sizes are close to those of backpacks in actual use.
+ */
+public class BenchmarkItems {
+    /**
+     * Creates the contents of a backpack of a specific size.
+     *
+     * @param size The size of the backpack.
+     * @return The contents, with one entry per slot of the backpack.
+     */
+    public static ItemStack[] createContents(BackpackSize size) {
+        ItemStack[] contents = new ItemStack[size.getInventorySlots()];
+        for (int i = 0; i < contents.length; i++) {
+            contents[i] = switch (i % 6) {
+                case 0 -> new ItemStack(Material.STONE, 64);
+                case 1 -> new ItemStack(Material.DIAMOND_SWORD) {{
+                    addUnsafeEnchantment(Enchantment.DAMAGE_ALL, 5);
+                    addUnsafeEnchantment(Enchantment.DURABILITY, 3);
+                }};
+                case 2 -> new ItemStack(Material.OAK_LOG, 32);
+                case 3 -> new ItemStack(Material.WRITABLE_BOOK) {{
+                    ItemMeta meta = getItemMeta();
+                    meta.setDisplayName(Utils.colorify("&6Notes #" + i));
+                    meta.setLore(List.of(Utils.colorify("&7Written on day " + i)));
+                    setItemMeta(meta);
+                }};
+                case 4 -> new ItemStack(Material.COOKED_BEEF, 16);
+                default -> null;
+            };
+        }
+        return contents;
+    }
+
+    /**
+     * Creates a backpack item holding specific contents, the way it's kept in a player's inventory.
+     * <p>
+     * The item is a server-side item, so reading its metadata copies it as it would on a server.
+     *
+     * @param size     The size of the backpack.
+     * @param contents The contents of the backpack.
+     * @return The backpack item.
+     */
+    public static ItemStack createBackpackItem(BackpackSize size, ItemStack[] contents) {
+        ItemStack item = new ItemStack(Material.PLAYER_HEAD) {{
+            ItemMeta meta = Utils.applySkinTexture((SkullMeta) getItemMeta(), BackpackColor.BROWN.getTextureID());
+            meta.setDisplayName(Utils.colorify("&aBackpack"));
+            meta.setLore(List.of(Utils.colorify("&7Size: &f" + size.getFriendlyName())));
+            PersistentDataContainer container = meta.getPersistentDataContainer();
+            container.set(DataKeys.MARKER.getKey(), PersistentDataType.BYTE, (byte) 1);
+            container.set(DataKeys.ID.getKey(), PersistentDataType.STRING, UUID.randomUUID().toString());
+            container.set(DataKeys.SIZE.getKey(), PersistentDataType.STRING, size.name());
+            container.set(DataKeys.CONTENTS.getKey(), PersistentDataType.BYTE_ARRAY, ItemStackCodec.encodeBytes(contents));
+            container.set(DataKeys.REVISION.getKey(), PersistentDataType.LONG, 1L);
+            setItemMeta(meta);
+        }};
+        return CraftItemStack.asCraftCopy(item);
+    }
+}
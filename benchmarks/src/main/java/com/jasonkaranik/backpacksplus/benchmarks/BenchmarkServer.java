@@ -0,0 +1,91 @@
+package com.jasonkaranik.backpacksplus.benchmarks;
+
+import com.jasonkaranik.backpacksplus.enums.DataKeys;
+import net.minecraft.SharedConstants;
+import net.minecraft.server.Bootstrap;
+import net.minecraft.world.item.enchantment.Enchantments;
+import org.bukkit.Bukkit;
+import org.bukkit.NamespacedKey;
+import org.bukkit.Server;
+import org.bukkit.craftbukkit.v1_18_R1.inventory.CraftItemFactory;
+import org.bukkit.craftbukkit.v1_18_R1.profile.CraftPlayerProfile;
+import org.bukkit.craftbukkit.v1_18_R1.util.CraftMagicNumbers;
+import org.bukkit.enchantments.Enchantment;
+import org.bukkit.scheduler.BukkitScheduler;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+/**
+ * Sets up just enough of a server for the benchmarks to create, read and encode items.
+ * <p>
+ * The Minecraft registries are bootstrapped from the Spigot server jar, and a stand-in
+ * {@link Server} provides the item factory and the few other server methods the plugin uses.
+ * Scheduled tasks are never run, so benchmarks flush and compact stores themselves. The
+ * plugin's data keys are created without a plugin instance, as no plugin is loaded.
+ */
+public class BenchmarkServer {
+    private static final Logger logger = Logger.getLogger("BackpacksPlus Benchmarks");
+
+    private static boolean started = false;
+
+    /**
+     * Sets up the server, unless it was already set up by an earlier benchmark in the same JVM.
+     *
+     * @throws IllegalStateException If the plugin's data keys couldn't be created.
+     */
+    public static synchronized void start() {
+        if (started) {
+            return;
+        }
+
+        SharedConstants.tryDetectVersion();
+        Bootstrap.bootStrap();
+        Enchantments.SHARPNESS.getClass();
+        Enchantment.stopAcceptingRegistrations();
+
+        BukkitTask task = proxy(BukkitTask.class, (method, args) -> null);
+        BukkitScheduler scheduler = proxy(BukkitScheduler.class, (method, args) -> BukkitTask.class.equals(method.getReturnType()) ? task : null);
+        Bukkit.setServer(proxy(Server.class, (method, args) -> switch (method.getName()) {
+            case "getLogger" -> logger;
+            case "getName", "getVersion", "getBukkitVersion" -> "BackpacksPlus Benchmarks";
+            case "getItemFactory" -> CraftItemFactory.instance();
+            case "getUnsafe" -> CraftMagicNumbers.INSTANCE;
+            case "getScheduler" -> scheduler;
+            case "createPlayerProfile" -> new CraftPlayerProfile((UUID) args[0], args.length > 1 ? (String) args[1] : null);
+            default -> throw new UnsupportedOperationException(method.getName());
+        }));
+
+        try {
+            Field key = DataKeys.class.getDeclaredField("key");
+            Field namespaced_key = DataKeys.class.getDeclaredField("namespacedKey");
+            key.setAccessible(true);
+            namespaced_key.setAccessible(true);
+            for (DataKeys data_key : DataKeys.values()) {
+                namespaced_key.set(data_key, new NamespacedKey("backpacksplus", (String) key.get(data_key)));
+            }
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Couldn't create the plugin's data keys", e);
+        }
+
+        started = true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Handler handler) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> switch (method.getName()) {
+            case "hashCode" -> System.identityHashCode(proxy);
+            case "equals" -> proxy == args[0];
+            case "toString" -> type.getSimpleName();
+            default -> handler.handle(method, args != null ? args : new Object[0]);
+        });
+    }
+
+    private interface Handler {
+        Object handle(Method method, Object[] args) throws Throwable;
+    }
+}
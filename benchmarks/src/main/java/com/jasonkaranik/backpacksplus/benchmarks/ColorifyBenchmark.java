@@ -0,0 +1,98 @@
+package com.jasonkaranik.backpacksplus.benchmarks;
+
+import com.jasonkaranik.backpacksplus.utils.Utils;
+import org.bukkit.ChatColor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Measures how long it takes to translate the color codes of GUI titles and lore lines.
+ * <p>
+ * The baseline is the translation used before color codes were translated in a single pass,
+ * which searched for hex colors with a regular expression and then translated '&amp;' codes.
+ * The {@code repeated} benchmarks translate the same few messages over and over, as the GUIs do,
+ * while the {@code distinct} benchmarks translate more different messages than are remembered,
+ * so that every message has to be translated.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ColorifyBenchmark {
+    private static final Pattern HEX_PATTERN = Pattern.compile("#[a-fA-F0-9]{6}");
+
+    private static final String[] REPEATED_MESSAGES = {
+            "&aBackpack",
+            "&7Size: &fJumbo",
+            "#835432Brown &7Backpack",
+            "&c&lClose",
+            "&7Click to &aupgrade &7your backpack to &#FFAA00Greater"
+    };
+
+    private String[] distinct_messages;
+
+    private int index = 0;
+
+    @Setup
+    public void setup() {
+        distinct_messages = new String[4096];
+        for (int i = 0; i < distinct_messages.length; i++) {
+            distinct_messages[i] = String.format("&7Page &f%1$d &7of #%2$06X%3$d", i, i * 4099 & 0xFFFFFF, distinct_messages.length);
+        }
+    }
+
+    @Benchmark
+    public String baselineRepeated() {
+        return colorifyBaseline(nextRepeatedMessage());
+    }
+
+    @Benchmark
+    public String repeated() {
+        return Utils.colorify(nextRepeatedMessage());
+    }
+
+    @Benchmark
+    public String baselineDistinct() {
+        return colorifyBaseline(nextDistinctMessage());
+    }
+
+    @Benchmark
+    public String distinct() {
+        return Utils.colorify(nextDistinctMessage());
+    }
+
+    private String nextRepeatedMessage() {
+        index = (index + 1) % REPEATED_MESSAGES.length;
+        return REPEATED_MESSAGES[index];
+    }
+
+    private String nextDistinctMessage() {
+        index = (index + 1) % distinct_messages.length;
+        return distinct_messages[index];
+    }
+
+    private static String colorifyBaseline(String msg) {
+        Matcher matcher = HEX_PATTERN.matcher(msg);
+        while (matcher.find()) {
+            String hexCode = matcher.group();
+            net.md_5.bungee.api.ChatColor color = net.md_5.bungee.api.ChatColor.of(hexCode);
+            msg = msg.replace(hexCode, color.toString());
+        }
+
+        return ChatColor.translateAlternateColorCodes('&', msg);
+    }
+}
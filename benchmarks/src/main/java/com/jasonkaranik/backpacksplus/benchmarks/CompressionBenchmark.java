@@ -0,0 +1,79 @@
+package com.jasonkaranik.backpacksplus.benchmarks;
+
+import com.jasonkaranik.backpacksplus.enums.BackpackSize;
+import com.jasonkaranik.backpacksplus.utils.ItemStackCodec;
+import org.bukkit.inventory.ItemStack;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the CPU cost of compressing encoded backpack contents, next to the size it saves.
+ * <p>
+ * A {@code threshold} of -1 disables compression, and the default of 1024 bytes compresses
+ * every backpack larger than a few rows. The {@code cold} benchmarks measure moving contents
+ * to the cold tier and rehydrating them. The encoded size, compressed size and cold size of
+ * each backpack size are printed when the benchmark is set up.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompressionBenchmark {
+    @Param({"SMALL", "JUMBO", "TITANIC"})
+    public BackpackSize size;
+
+    @Param({"-1", "1024"})
+    public int threshold;
+
+    private ItemStack[] contents;
+
+    private byte[] encoded;
+
+    private byte[] cold;
+
+    @Setup
+    public void setup() {
+        BenchmarkServer.start();
+        contents = BenchmarkItems.createContents(size);
+
+        ItemStackCodec.setCompressionThreshold(-1);
+        int uncompressed = ItemStackCodec.encodeBytes(contents).length;
+        ItemStackCodec.setCompressionThreshold(threshold);
+        encoded = ItemStackCodec.encodeBytes(contents);
+        cold = ItemStackCodec.toColdBytes(encoded);
+        System.out.printf("%1$s: %2$d bytes uncompressed, %3$d bytes with a threshold of %4$d, %5$d bytes cold%n", size, uncompressed, encoded.length, threshold, cold.length);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return ItemStackCodec.encodeBytes(contents);
+    }
+
+    @Benchmark
+    public ItemStack[] decode() {
+        return ItemStackCodec.decodeBytes(encoded);
+    }
+
+    @Benchmark
+    public byte[] coldEncode() {
+        return ItemStackCodec.toColdBytes(encoded);
+    }
+
+    @Benchmark
+    public byte[] coldDecode() {
+        return ItemStackCodec.toHotBytes(cold);
+    }
+}
@@ -0,0 +1,80 @@
+package com.jasonkaranik.backpacksplus.benchmarks;
+
+import com.jasonkaranik.backpacksplus.enums.BackpackSize;
+import com.jasonkaranik.backpacksplus.utils.ItemStackCodec;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.util.io.BukkitObjectOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.yaml.snakeyaml.external.biz.base64Coder.Base64Coder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time and memory it takes to encode backpack contents.
+ * <p>
+ * The baseline is the encoding used before the binary format, which wrote every item with
+ * Java serialization into a new stream and wrapped the result in Base64. Run with
+ * {@code -prof gc}, {@code gc.alloc.rate.norm} shows the bytes allocated per encoding. Once
+ * the per-thread buffers have grown, {@code encodeBytes} only allocates the returned array
+ * and whatever the item metas allocate while being serialized.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-XX:+UseParallelGC")
+public class EncodeAllocationBenchmark {
+    @Param({"SMALL", "JUMBO", "TITANIC"})
+    public BackpackSize size;
+
+    private ItemStack[] contents;
+
+    @Setup
+    public void setup() {
+        BenchmarkServer.start();
+        contents = BenchmarkItems.createContents(size);
+    }
+
+    @Benchmark
+    public String baselineEncode() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        BukkitObjectOutputStream dataOutput = new BukkitObjectOutputStream(outputStream);
+
+        dataOutput.writeInt(contents.length);
+
+        for (ItemStack itemStack : contents) {
+            dataOutput.writeObject(itemStack);
+        }
+
+        dataOutput.close();
+        return Base64Coder.encodeLines(outputStream.toByteArray());
+    }
+
+    @Benchmark
+    public String encode() {
+        return ItemStackCodec.encode(contents);
+    }
+
+    @Benchmark
+    public byte[] encodeBytes() {
+        return ItemStackCodec.encodeBytes(contents);
+    }
+
+    @Benchmark
+    public byte[] encodePages() {
+        return ItemStackCodec.encodePages(contents, size.getPageSlots());
+    }
+}
@@ -0,0 +1,150 @@
+package com.jasonkaranik.backpacksplus.benchmarks;
+
+import com.jasonkaranik.backpacksplus.storage.BackpackStore;
+import com.jasonkaranik.backpacksplus.storage.FileBackpackStore;
+import com.jasonkaranik.backpacksplus.storage.SegmentBackpackStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Compares the segment store with the file-per-backpack store at different numbers of stored backpacks.
+ * <p>
+ * Each trial fills a new store with {@code records} backpacks of {@link #CONTENTS_LENGTH} bytes.
+ * The file store is filled by writing its files directly, as saving a million backpacks one
+ * synced file at a time would take longer than the benchmark itself. {@code load} and
+ * {@code save} work on random backpacks, {@code saveBatch} saves as many backpacks as a
+ * typical flush of the write-behind queue and then syncs the store, and {@code open} measures
+ * creating the store and listing its backpacks, which is what happens when the server starts.
+ * <p>
+ * The benchmark writes a few gigabytes to the temporary directory at a million records.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class SegmentStoreBenchmark {
+    /**
+     * The length of the contents of each backpack, about that of a compressed jumbo backpack.
+     */
+    private static final int CONTENTS_LENGTH = 1024;
+
+    private static final int BATCH_SIZE = 64;
+
+    @Param({"10000", "100000", "1000000"})
+    public int records;
+
+    @Param({"FILE", "SEGMENT"})
+    public String layout;
+
+    private Path directory;
+
+    private BackpackStore store;
+
+    private String[] ids;
+
+    private byte[] contents;
+
+    private final Random random = new Random(0);
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        BenchmarkServer.start();
+        directory = Files.createTempDirectory("backpacksplus-benchmark");
+        contents = new byte[CONTENTS_LENGTH];
+        random.nextBytes(contents);
+
+        ids = new String[records];
+        for (int i = 0; i < records; i++) {
+            ids[i] = new UUID(random.nextLong(), random.nextLong()).toString();
+        }
+
+        if (layout.equals("FILE")) {
+            for (String id : ids) {
+                Files.write(directory.resolve(id + ".bin"), contents);
+            }
+        } else {
+            BackpackStore segment_store = new SegmentBackpackStore(directory);
+            for (String id : ids) {
+                segment_store.save(id, contents);
+            }
+            segment_store.sync();
+            segment_store.close();
+        }
+        store = createStore();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        store.close();
+        List<Path> paths;
+        try (Stream<Path> files = Files.walk(directory)) {
+            paths = files.sorted(Comparator.reverseOrder()).toList();
+        }
+        for (Path path : paths) {
+            Files.delete(path);
+        }
+    }
+
+    @Benchmark
+    public byte[] load() {
+        return store.load(nextID());
+    }
+
+    @Benchmark
+    public void save() {
+        store.save(nextID(), contents);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void saveBatch() {
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            store.save(nextID(), contents);
+        }
+        store.sync();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public int open() {
+        BackpackStore opened = createStore();
+        int size = opened.getIDs().size();
+        opened.close();
+        return size;
+    }
+
+    private BackpackStore createStore() {
+        return layout.equals("FILE") ? new FileBackpackStore(directory) : new SegmentBackpackStore(directory);
+    }
+
+    private String nextID() {
+        return ids[random.nextInt(ids.length)];
+    }
+}
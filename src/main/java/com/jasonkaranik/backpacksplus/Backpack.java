@@ -2,13 +2,16 @@ package com.jasonkaranik.backpacksplus;
 
 import com.jasonkaranik.backpacksplus.enums.BackpackColor;
 import com.jasonkaranik.backpacksplus.enums.BackpackSize;
+import com.jasonkaranik.backpacksplus.enums.DataKeys;
 import com.jasonkaranik.backpacksplus.enums.Messages;
 import com.jasonkaranik.backpacksplus.enums.Permissions;
+import com.jasonkaranik.backpacksplus.enums.StorageMode;
 import com.jasonkaranik.backpacksplus.guis.BackpackCustomizerGUI;
 import com.jasonkaranik.backpacksplus.guis.BackpackGUI;
 import com.jasonkaranik.backpacksplus.utils.ItemStackCodec;
 import com.jasonkaranik.backpacksplus.utils.Utils;
 import com.jasonkaranik.json.simple.extended.JSONObject;
+import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.Sound;
 import org.bukkit.entity.Player;
@@ -17,12 +20,19 @@ import org.bukkit.inventory.meta.ItemMeta;
 import org.bukkit.inventory.meta.SkullMeta;
 import org.bukkit.persistence.PersistentDataContainer;
 import org.bukkit.persistence.PersistentDataType;
+import org.yaml.snakeyaml.external.biz.base64Coder.Base64Coder;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 
 /**
  * Represents a virtual backpack container that stores items and configuration data.
@@ -44,9 +54,14 @@ import java.util.List;
  * @since 1.0.0
  */
 public class Backpack {
+    private static final int LORE_HEADER_LINES = 4;
+
     private final Player player;
 
-    private final JSONObject data;
+    /**
+     * The properties that changed since the backpack was loaded or last saved.
+     */
+    private final EnumSet<DataKeys> dirty = EnumSet.noneOf(DataKeys.class);
 
     private ItemStack item;
 
@@ -58,17 +73,48 @@ public class Backpack {
 
     private BackpackSize size;
 
+    /**
+     * The encoded contents, or {@code null} if they haven't been loaded from the backpack store yet.
+     */
+    private byte[] contents_data;
+
+    /**
+     * Whether the backpack store holds the saved contents of this backpack.
+     */
+    private boolean stored = false;
+
+    /**
+     * Whether the contents were only re-encoded since the backpack was loaded or last saved,
+     * which leaves the contents summary in the lore as it is.
+     */
+    private boolean contents_recoded = false;
+
+    private byte[] uncut_contents_data;
+
+    /**
+     * The decoded contents, or {@code null} if they haven't been decoded from {@link #contents_data} yet.
+     */
     private ItemStack[] contents;
 
+    /**
+     * The pages decoded on their own, for sizes spanning multiple pages, while the whole contents haven't been decoded.
+     */
+    private final Map<Integer, ItemStack[]> decoded_pages = new HashMap<>();
+
     private long created_at;
 
     private long last_opened_at;
 
+    private long revision;
+
     /**
      * Creates a new Backpack instance for a specific player using saved NBT configuration data.
      * <p>
      * This constructor initializes all backpack properties including size, color, contents,
      * and metadata. If any properties are missing from the data, default values are applied.
+     * <p>
+     * Backpacks still using the legacy JSON data layout are read from that layout and
+     * migrated to the current layout the next time they are saved.
      *
      * @param player The player who owns this backpack.
      * @param item   ItemStack containing backpack properties and contents.
@@ -78,93 +124,300 @@ public class Backpack {
         if (player != null && item != null) {
             this.player = player;
             this.item = item;
-            if (item.hasItemMeta()) {
-                ItemMeta meta = item.getItemMeta();
+            // The metadata is only copied once, as checking hasItemMeta() first would copy it as well.
+            ItemMeta meta = item.getItemMeta();
+            if (meta != null && !Bukkit.getItemFactory().equals(meta, null)) {
                 PersistentDataContainer container = meta.getPersistentDataContainer();
-                data = container.has(BackpacksPlus.getBackpackDataKey(), PersistentDataType.STRING) ? new JSONObject(container.get(BackpacksPlus.getBackpackDataKey(), PersistentDataType.STRING)) : new JSONObject();
+                if (container.has(DataKeys.LEGACY_DATA.getKey(), PersistentDataType.STRING)) {
+                    load(new JSONObject(container.get(DataKeys.LEGACY_DATA.getKey(), PersistentDataType.STRING)));
+                } else {
+                    load(container);
+                }
             } else {
                 throw new IllegalArgumentException("Item has no metadata");
             }
-            update();
         } else {
             throw new IllegalArgumentException("Player and Item cannot be null");
         }
     }
 
     /**
-     * Updates the backpack's internal state and validates its configuration.
+     * Loads the backpack properties from the typed keys of the item's data container.
      * <p>
-     * This method:
-     * <ul>
-     *   <li>Ensures all required properties exist, applying defaults if needed</li>
-     *   <li>Validates and updates the backpack contents</li>
-     *   <li>Adjusts contents if they exceed the current size limit</li>
-     *   <li>Updates the physical item representation</li>
-     *   <li>Maintains data consistency across all properties</li>
-     * </ul>
+     * Any property missing from the container is set to its default value, which is
+     * persisted the next time the backpack is saved.
      * <p>
-     * If the backpack contents exceed the current size limit, the excess items
-     * are preserved in the data under 'uncut_contents' for potential future manual restoration.
+     * Contents kept in the item are moved to the backpack store the next time the backpack
+     * is saved, if the configured storage mode keeps them on the server.
      *
-     * @since 1.0.0
+     * @param container The data container of the backpack item.
+     * @see DataKeys
+     * @since 1.1.0
      */
-    private void update() {
-        addMissing("display_name", Config.getDefaultBackpackDisplayName());
-        addMissing("color", Config.getDefaultBackpackColor().name());
-        addMissing("size", Config.getDefaultBackpackSize().name());
-        addMissing("contents", Config.getDefaultBackpackContentsSerialized());
-        addMissing("created_at", System.currentTimeMillis());
-        addMissing("last_opened_at", -1L);
+    private void load(PersistentDataContainer container) {
+        id = contains(container, DataKeys.ID, PersistentDataType.STRING) ? container.get(DataKeys.ID.getKey(), PersistentDataType.STRING) : UUID.randomUUID().toString();
 
-        id = (String) data.get("id");
+        display_name = contains(container, DataKeys.DISPLAY_NAME, PersistentDataType.STRING) ? container.get(DataKeys.DISPLAY_NAME.getKey(), PersistentDataType.STRING) : Config.getDefaultBackpackDisplayName();
 
-        display_name = (String) data.get("display_name");
+        color = contains(container, DataKeys.COLOR, PersistentDataType.STRING) ? BackpackColor.getByName(container.get(DataKeys.COLOR.getKey(), PersistentDataType.STRING)) : Config.getDefaultBackpackColor();
 
-        color = BackpackColor.getByName((String) data.get("color"));
+        size = contains(container, DataKeys.SIZE, PersistentDataType.STRING) ? BackpackSize.getByName(container.get(DataKeys.SIZE.getKey(), PersistentDataType.STRING)) : Config.getDefaultBackpackSize();
 
-        size = BackpackSize.getByName((String) data.get("size"));
+        // Items without contents may have them in the backpack store, which is only read once the contents are needed.
+        if (container.has(DataKeys.CONTENTS.getKey(), PersistentDataType.BYTE_ARRAY)) {
+            contents_data = container.get(DataKeys.CONTENTS.getKey(), PersistentDataType.BYTE_ARRAY);
+            if (Config.getStorageMode() != StorageMode.ITEM) {
+                dirty.add(DataKeys.CONTENTS);
+            }
+        }
 
-        contents = ItemStackCodec.decode((String) data.get("contents"));
+        uncut_contents_data = container.get(DataKeys.UNCUT_CONTENTS.getKey(), PersistentDataType.BYTE_ARRAY);
 
-        created_at = ((Number) data.get("created_at")).longValue();
+        created_at = contains(container, DataKeys.CREATED_AT, PersistentDataType.LONG) ? container.get(DataKeys.CREATED_AT.getKey(), PersistentDataType.LONG) : System.currentTimeMillis();
 
-        last_opened_at = ((Number) data.get("last_opened_at")).longValue();
+        last_opened_at = contains(container, DataKeys.LAST_OPENED_AT, PersistentDataType.LONG) ? container.get(DataKeys.LAST_OPENED_AT.getKey(), PersistentDataType.LONG) : -1L;
 
-        if (getOccupiedSlotsNumber() > size.getInventorySlots()) {
-            data.put("uncut_contents", ItemStackCodec.encode(contents));
-            contents = Arrays.copyOfRange(contents, 0, size.getInventorySlots());
+        revision = container.getOrDefault(DataKeys.REVISION.getKey(), PersistentDataType.LONG, 0L);
+    }
+
+    /**
+     * Checks if a backpack property exists in the data container, marking it as changed if it doesn't.
+     * <p>
+     * This utility method is used during backpack loading so that properties which
+     * fall back to their default values are persisted the next time the backpack is saved.
+     *
+     * @param container The data container of the backpack item.
+     * @param key       The data key of the property.
+     * @param type      The data type the property is stored as.
+     * @return {@code true} if the property exists, {@code false} otherwise.
+     * @since 1.1.0
+     */
+    private boolean contains(PersistentDataContainer container, DataKeys key, PersistentDataType<?, ?> type) {
+        if (container.has(key.getKey(), type)) {
+            return true;
+        }
+        dirty.add(key);
+        return false;
+    }
+
+    /**
+     * Loads the backpack properties from the legacy JSON data layout.
+     * <p>
+     * Any property missing from the data is set to its default value. The legacy data
+     * is replaced by the typed keys the next time the backpack is saved.
+     *
+     * @param data The legacy JSON data of the backpack item.
+     * @see DataKeys#LEGACY_DATA
+     * @since 1.1.0
+     */
+    private void load(JSONObject data) {
+        id = data.containsKey("id") ? (String) data.get("id") : UUID.randomUUID().toString();
+
+        display_name = data.containsKey("display_name") ? (String) data.get("display_name") : Config.getDefaultBackpackDisplayName();
+
+        color = data.containsKey("color") ? BackpackColor.getByName((String) data.get("color")) : Config.getDefaultBackpackColor();
+
+        size = data.containsKey("size") ? BackpackSize.getByName((String) data.get("size")) : Config.getDefaultBackpackSize();
+
+        contents_data = Base64Coder.decodeLines(data.containsKey("contents") ? (String) data.get("contents") : Config.getDefaultBackpackContentsSerialized());
+
+        uncut_contents_data = data.containsKey("uncut_contents") ? Base64Coder.decodeLines((String) data.get("uncut_contents")) : null;
+
+        created_at = data.containsKey("created_at") ? ((Number) data.get("created_at")).longValue() : System.currentTimeMillis();
+
+        last_opened_at = data.containsKey("last_opened_at") ? ((Number) data.get("last_opened_at")).longValue() : -1L;
+
+        dirty.addAll(EnumSet.allOf(DataKeys.class));
+    }
+
+    /**
+     * Retrieves the encoded backpack contents, loading them from the backpack store first if needed.
+     * <p>
+     * If the store holds no contents for this backpack either, the default contents are
+     * used and persisted the next time the backpack is saved. Contents loaded from the store
+     * are moved back into the item the next time the backpack is saved, if the configured
+     * storage mode keeps them in the item.
+     *
+     * @return The encoded backpack contents.
+     * @throws IllegalStateException If the contents couldn't be loaded from the store.
+     * @see BackpacksPlus#getBackpackStore()
+     * @since 1.1.0
+     */
+    private byte[] getContentsData() {
+        if (contents_data == null) {
+            // The store is only created for backpacks kept in items if contents were ever kept on the server.
+            contents_data = Config.getStorageMode() != StorageMode.ITEM || BackpacksPlus.hasBackpackStore() ? BackpacksPlus.getBackpackStore().load(id) : null;
+            if (contents_data != null) {
+                stored = true;
+                if (Config.getStorageMode() == StorageMode.ITEM) {
+                    dirty.add(DataKeys.CONTENTS);
+                }
+            } else {
+                contents_data = Base64Coder.decodeLines(Config.getDefaultBackpackContentsSerialized());
+                dirty.add(DataKeys.CONTENTS);
+            }
+        }
+        return contents_data;
+    }
+
+    /**
+     * Replaces the encoded contents with a different encoding of the same items.
+     *
+     * @param data The re-encoded contents.
+     * @since 1.1.0
+     */
+    private void recode(byte[] data) {
+        if (!dirty.contains(DataKeys.CONTENTS)) {
+            contents_recoded = true;
+        }
+        contents_data = data;
+        dirty.add(DataKeys.CONTENTS);
+    }
+
+    /**
+     * Replaces the backpack contents with their cold tier encoding, prepared from a specific revision of the backpack.
+     * <p>
+     * The cold contents are prepared in the background, so they're only used if the backpack
+     * wasn't saved, changed or opened since that revision was read, and still wasn't opened
+     * since the cutoff. Backpacks that were never opened are compared by their creation time
+     * instead. The change is persisted the next time the backpack is saved.
+     *
+     * @param cutoff    The time, in milliseconds since the epoch, before which the backpack must have been last opened.
+     * @param revision  The revision of the backpack the cold contents were prepared from.
+     * @param cold_data The contents of that revision, encoded for the cold tier.
+     * @return {@code true} if the contents were replaced, {@code false} otherwise.
+     * @see ItemStackCodec#toColdBytes(byte[])
+     * @see ColdStorage#moveToColdTier(Player)
+     * @since 1.1.0
+     */
+    boolean moveToColdTier(long cutoff, long revision, byte[] cold_data) {
+        if (this.revision != revision || dirty.contains(DataKeys.CONTENTS) || Math.max(created_at, last_opened_at) >= cutoff) {
+            return false;
         }
+        // Contents that weren't loaded yet are kept in the backpack store, which is where the cold contents were prepared from.
+        if (contents_data == null) {
+            stored = true;
+        }
+        recode(cold_data);
+        return true;
     }
 
     /**
-     * Adds a backpack data property if the key doesn't already exist in the data container.
+     * Decodes the backpack contents and validates them against the current size.
      * <p>
-     * This utility method is used during backpack initialization to populate missing
-     * properties with their default values. If the specified key is already present in the
-     * backpack's data, no action is taken to preserve existing backpack settings.
+     * Contents are decoded lazily, the first time they are needed after being loaded or
+     * changed, so that interactions which never look at the contents don't pay for decoding them.
      * <p>
-     * When a missing key is detected and added, the property is immediately available
-     * for use by other backpack methods. This ensures that all backpack instances have
-     * consistent data structure regardless of when they were created or last updated.
+     * If the backpack contents exceed the current size limit, the excess items
+     * are preserved in the data under 'uncut_contents' for potential future manual restoration.
      *
-     * @param key   The data property key to check and potentially add.
-     * @param value The default value to set if the key is missing.
-     * @since 1.0.0
+     * @since 1.1.0
      */
-    private void addMissing(String key, Object value) {
-        if (!data.containsKey(key)) {
-            data.put(key, value);
+    private void decodeContents() {
+        contents = ItemStackCodec.decodeBytes(getContentsData());
+
+        if (Utils.getItemStackArraySize(contents) > size.getInventorySlots()) {
+            uncut_contents_data = contents_data;
+            dirty.add(DataKeys.UNCUT_CONTENTS);
+            contents = Arrays.copyOfRange(contents, 0, size.getInventorySlots());
         }
     }
 
     /**
-     * Retrieves this backpack's raw configuration data.
+     * Writes the changed backpack properties to the typed keys of a data container.
+     * <p>
+     * Only the properties that changed since the backpack was loaded or last saved are
+     * written. Depending on the configured storage mode, the contents are either written
+     * to the container or saved to the backpack store. For backpacks that still used the legacy data layout, every property is
+     * written and the legacy JSON data is removed from the container, completing their migration.
+     *
+     * @param container The data container to write to.
+     * @see DataKeys
+     * @since 1.1.0
+     */
+    private void write(PersistentDataContainer container) {
+        for (DataKeys key : dirty) {
+            switch (key) {
+                case MARKER:
+                    container.set(key.getKey(), PersistentDataType.BYTE, (byte) 1);
+                    break;
+                case ID:
+                    container.set(key.getKey(), PersistentDataType.STRING, id);
+                    break;
+                case DISPLAY_NAME:
+                    container.set(key.getKey(), PersistentDataType.STRING, display_name);
+                    break;
+                case COLOR:
+                    container.set(key.getKey(), PersistentDataType.STRING, color.name());
+                    break;
+                case SIZE:
+                    container.set(key.getKey(), PersistentDataType.STRING, size.name());
+                    break;
+                case CONTENTS:
+                    if (Config.getStorageMode() == StorageMode.ITEM) {
+                        container.set(key.getKey(), PersistentDataType.BYTE_ARRAY, contents_data);
+                        if (stored) {
+                            BackpacksPlus.getBackpackStore().delete(id);
+                            stored = false;
+                        }
+                    } else {
+                        BackpacksPlus.getBackpackStore().save(id, contents_data);
+                        stored = true;
+                        container.remove(key.getKey());
+                    }
+                    if (ItemStackCodec.isCold(contents_data)) {
+                        container.set(DataKeys.COLD.getKey(), PersistentDataType.BYTE, (byte) 1);
+                    } else {
+                        container.remove(DataKeys.COLD.getKey());
+                    }
+                    break;
+                case COLD:
+                    // Written along with the contents, as it describes them.
+                    break;
+                case UNCUT_CONTENTS:
+                    if (uncut_contents_data != null) {
+                        container.set(key.getKey(), PersistentDataType.BYTE_ARRAY, uncut_contents_data);
+                    }
+                    break;
+                case CREATED_AT:
+                    container.set(key.getKey(), PersistentDataType.LONG, created_at);
+                    break;
+                case LAST_OPENED_AT:
+                    container.set(key.getKey(), PersistentDataType.LONG, last_opened_at);
+                    break;
+                case REVISION:
+                    container.set(key.getKey(), PersistentDataType.LONG, revision);
+                    break;
+                case LEGACY_DATA:
+                    container.remove(key.getKey());
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Retrieves a snapshot of this backpack's configuration data.
+     * <p>
+     * The returned object is built from the current backpack properties using the
+     * legacy JSON data layout, with the contents encoded as a Base64 string. Changes
+     * made to it are not reflected in the backpack.
      *
      * @return JSONObject containing all backpack properties and metadata.
      * @since 1.0.0
      */
     @Nonnull
     public JSONObject getJSONData() {
+        JSONObject data = new JSONObject();
+        data.put("id", id);
+        data.put("display_name", display_name);
+        data.put("color", color.name());
+        data.put("size", size.name());
+        data.put("contents", Base64.getEncoder().encodeToString(getContentsData()));
+        if (uncut_contents_data != null) {
+            data.put("uncut_contents", Base64.getEncoder().encodeToString(uncut_contents_data));
+        }
+        data.put("created_at", created_at);
+        data.put("last_opened_at", last_opened_at);
         return data;
     }
 
@@ -181,6 +434,33 @@ public class Backpack {
         return id;
     }
 
+    /**
+     * Retrieves the revision of this backpack.
+     * <p>
+     * The revision is incremented every time the backpack is saved, and is used by
+     * {@link BackpackCache} to detect if a backpack item changed since it was loaded.
+     *
+     * @return The number of times this backpack has been saved.
+     * @since 1.1.0
+     */
+    long getRevision() {
+        return revision;
+    }
+
+    /**
+     * Checks if this backpack has changes that weren't written to its item yet.
+     * <p>
+     * Opening a backpack only updates its last opened time, which is written with the
+     * next save or when the backpack is removed from the {@link BackpackCache}.
+     *
+     * @return {@code true} if the backpack has unsaved changes, {@code false} otherwise.
+     * @see #save()
+     * @since 1.1.0
+     */
+    boolean hasUnsavedChanges() {
+        return !dirty.isEmpty();
+    }
+
     /**
      * Retrieves the timestamp when this backpack was created.
      * <p>
@@ -200,6 +480,8 @@ public class Backpack {
      * <p>
      * The timestamp is updated each time the backpack inventory is
      * successfully opened through the {@link #openContainer(Boolean)} method.
+     * Opening a backpack doesn't save it on its own, so the updated timestamp is
+     * written to the item along with the next change to the backpack.
      *
      * @return Unix timestamp (milliseconds) of last access, or -1 if never opened.
      * @see #getCreationTime()
@@ -234,8 +516,8 @@ public class Backpack {
      */
     public void setDisplayName(String newName) {
         if (newName != null) {
-            data.put("display_name", newName);
-            update();
+            display_name = newName;
+            dirty.add(DataKeys.DISPLAY_NAME);
         } else {
             throw new IllegalArgumentException("Name cannot be null");
         }
@@ -269,8 +551,8 @@ public class Backpack {
      */
     public void setColor(BackpackColor newColor) {
         if (newColor != null) {
-            data.put("color", newColor.name());
-            update();
+            color = newColor;
+            dirty.add(DataKeys.COLOR);
         } else {
             throw new IllegalArgumentException("Color cannot be null");
         }
@@ -303,8 +585,10 @@ public class Backpack {
      */
     public void setSize(BackpackSize newSize) {
         if (newSize != null) {
-            data.put("size", newSize.name());
-            update();
+            size = newSize;
+            dirty.add(DataKeys.SIZE);
+            contents = null;
+            decoded_pages.clear();
         } else {
             throw new IllegalArgumentException("Size cannot be null");
         }
@@ -312,6 +596,8 @@ public class Backpack {
 
     /**
      * Retrieves the current contents of the backpack.
+     * <p>
+     * The contents are decoded on the first call and reused until they are changed.
      *
      * @return Array of ItemStacks representing the backpack contents.
      * @see #setContents(ItemStack[])
@@ -319,9 +605,40 @@ public class Backpack {
      */
     @Nonnull
     public ItemStack[] getContents() {
+        if (contents == null) {
+            decodeContents();
+        }
         return contents;
     }
 
+    /**
+     * Retrieves the contents of a single page of the backpack.
+     * <p>
+     * For sizes spanning multiple pages, each page is encoded on its own, so if the contents
+     * haven't been decoded yet, only the requested page is decoded. Decoded pages are reused
+     * until the contents are replaced.
+     *
+     * @param page The index of the page.
+     * @return A copy of the items in the page, with one element for each slot of the page.
+     * @throws ArrayIndexOutOfBoundsException If the page is outside the backpack's size.
+     * @see BackpackSize#getPages()
+     * @since 1.1.0
+     */
+    @Nonnull
+    public ItemStack[] getPage(int page) {
+        if (page >= 0 && page < size.getPages()) {
+            int page_slots = size.getPageSlots();
+            if (contents != null || size.getPages() == 1) {
+                ItemStack[] all_contents = getContents();
+                int from = page * page_slots;
+                return from < all_contents.length ? Arrays.copyOfRange(all_contents, from, from + page_slots) : new ItemStack[page_slots];
+            }
+            return decoded_pages.computeIfAbsent(page, p -> Arrays.copyOf(ItemStackCodec.decodePage(getContentsData(), p, page_slots), page_slots)).clone();
+        } else {
+            throw new ArrayIndexOutOfBoundsException(String.format("Page is outside the backpack's size: %1$s", page));
+        }
+    }
+
     /**
      * Updates the entire contents of the backpack.
      *
@@ -332,10 +649,13 @@ public class Backpack {
      * @since 1.0.0
      */
     public void setContents(ItemStack[] newContents) {
-        if (contents != null) {
+        if (newContents != null) {
             if (Utils.getItemStackArraySize(newContents) <= size.getInventorySlots()) {
-                data.put("contents", ItemStackCodec.encode(newContents));
-                update();
+                contents_data = ItemStackCodec.encodePages(newContents, size.getPageSlots());
+                dirty.add(DataKeys.CONTENTS);
+                contents_recoded = false;
+                contents = null;
+                decoded_pages.clear();
             } else {
                 throw new ArrayIndexOutOfBoundsException("Contents array is larger than the backpack's size");
             }
@@ -344,6 +664,100 @@ public class Backpack {
         }
     }
 
+    /**
+     * Retrieves the item in a single slot of the backpack.
+     * <p>
+     * If the contents haven't been decoded yet, only the requested slot is decoded.
+     *
+     * @param slot The index of the slot.
+     * @return The item in the slot, or null if the slot is empty.
+     * @throws ArrayIndexOutOfBoundsException If the slot is outside the backpack's size.
+     * @see #setItem(int, ItemStack)
+     * @since 1.1.0
+     */
+    @Nullable
+    public ItemStack getItem(int slot) {
+        if (slot >= 0 && slot < size.getInventorySlots()) {
+            if (contents != null) {
+                return slot < contents.length ? contents[slot] : null;
+            }
+            ItemStack[] page = decoded_pages.get(slot / size.getPageSlots());
+            if (page != null) {
+                return page[slot % size.getPageSlots()];
+            }
+            return ItemStackCodec.decodeSlot(getContentsData(), slot);
+        } else {
+            throw new ArrayIndexOutOfBoundsException(String.format("Slot is outside the backpack's size: %1$s", slot));
+        }
+    }
+
+    /**
+     * Updates the item in a single slot of the backpack.
+     *
+     * @param slot The index of the slot.
+     * @param item The item to put in the slot, or null to empty it.
+     * @throws ArrayIndexOutOfBoundsException If the slot is outside the backpack's size.
+     * @see #setItems(Map)
+     * @since 1.1.0
+     */
+    public void setItem(int slot, ItemStack item) {
+        setItems(Collections.singletonMap(slot, item));
+    }
+
+    /**
+     * Updates the items in specific slots of the backpack.
+     * <p>
+     * Only the updated slots are encoded, and spliced into the encoded contents, so
+     * changing a few slots of a full backpack doesn't re-encode all of its items.
+     *
+     * @param items The new item of each updated slot, with null items emptying the slot.
+     * @throws IllegalArgumentException       If the provided items map is null.
+     * @throws ArrayIndexOutOfBoundsException If a slot is outside the backpack's size.
+     * @throws IllegalStateException          If the encoded contents couldn't be decoded, in which case they're kept as they are.
+     * @see #setItem(int, ItemStack)
+     * @see #setContents(ItemStack[])
+     * @since 1.1.0
+     */
+    public void setItems(Map<Integer, ItemStack> items) {
+        if (items != null) {
+            if (items.isEmpty()) {
+                return;
+            }
+            for (int slot : items.keySet()) {
+                if (slot < 0 || slot >= size.getInventorySlots()) {
+                    throw new ArrayIndexOutOfBoundsException(String.format("Slot is outside the backpack's size: %1$s", slot));
+                }
+            }
+
+            contents_data = ItemStackCodec.splice(getContentsData(), items, size.getPageSlots());
+            dirty.add(DataKeys.CONTENTS);
+            contents_recoded = false;
+
+            if (contents != null) {
+                for (Map.Entry<Integer, ItemStack> entry : items.entrySet()) {
+                    if (entry.getKey() < contents.length) {
+                        ItemStack item = entry.getValue();
+                        contents[entry.getKey()] = item != null && item.getType() != Material.AIR ? item.clone() : null;
+                    } else {
+                        contents = null;
+                        break;
+                    }
+                }
+            }
+
+            int page_slots = size.getPageSlots();
+            for (Map.Entry<Integer, ItemStack> entry : items.entrySet()) {
+                ItemStack[] page = decoded_pages.get(entry.getKey() / page_slots);
+                if (page != null) {
+                    ItemStack item = entry.getValue();
+                    page[entry.getKey() % page_slots] = item != null && item.getType() != Material.AIR ? item.clone() : null;
+                }
+            }
+        } else {
+            throw new IllegalArgumentException("Items cannot be null");
+        }
+    }
+
     /**
      * Generates a formatted list of the backpack's contents for display.
      * <p>
@@ -352,22 +766,28 @@ public class Backpack {
      * their quantities, followed by a summary line if there are additional items.
      * <p>
      * The format follows: "&amp;8 - [Item Name] &amp;8x[Quantity]"
+     * <p>
+     * Pages are decoded one by one, and only until the summary is complete, so the
+     * summary of a large backpack doesn't decode all of its pages.
      *
      * @return List of formatted strings describing contents.
      * @since 1.0.0
      */
     public List<String> createContentsLore() {
         List<String> list = new ArrayList<>();
-        if (getOccupiedSlotsNumber() > 0) {
-            list.addAll(List.of("", Utils.colorify("&7Contents:")));
-            for (ItemStack item : contents) {
-                if (list.size() < 7) {
-                    if (item != null && item.getType() != Material.AIR) {
+        pages:
+        for (int page = 0; page < size.getPages(); page++) {
+            for (ItemStack item : getPage(page)) {
+                if (item != null && item.getType() != Material.AIR) {
+                    if (list.isEmpty()) {
+                        list.addAll(List.of("", Utils.colorify("&7Contents:")));
+                    }
+                    if (list.size() < 7) {
                         list.add(Utils.colorify(String.format("&8 - %1$s &8x%2$s", Utils.getItemName(item), item.getAmount())));
+                    } else {
+                        list.add(Utils.colorify("&8&o and more.."));
+                        break pages;
                     }
-                } else {
-                    list.add(Utils.colorify("&8&o and more.."));
-                    break;
                 }
             }
         }
@@ -381,34 +801,24 @@ public class Backpack {
      * @since 1.0.0
      */
     public int getOccupiedSlotsNumber() {
-        return Utils.getItemStackArraySize(contents);
+        return Utils.getItemStackArraySize(getContents());
     }
 
     /**
      * Finds the slot number where this backpack is located in the player's inventory.
      * <p>
-     * This method scans through the player's inventory to locate the physical
-     * backpack item that corresponds to this Backpack instance by comparing IDs.
-     * It's useful for inventory manipulation operations.
+     * This method locates the physical backpack item that corresponds to this Backpack
+     * instance by its ID, using the player's backpack index instead of scanning and
+     * loading every backpack in the inventory. It's useful for inventory manipulation operations.
      *
      * @return The inventory slot index where this backpack is located, or -1 if not found.
      * @throws IllegalStateException If the player is offline.
+     * @see BackpackIndex#getSlot(Player, String)
      * @since 1.0.0
      */
     public int getItemSlotNumberInInventory() {
         if (player.isOnline()) {
-            ItemStack[] plr_contents = player.getInventory().getContents();
-            for (int i = 0; i < plr_contents.length; i++) {
-                ItemStack it = plr_contents[i];
-
-                if (BackpacksPlus.isBackpackItem(it)) {
-                    Backpack bp = new Backpack(player, it);
-                    if (getID().equals(bp.getID())) {
-                        return i;
-                    }
-                }
-            }
-            return -1;
+            return BackpackIndex.getSlot(player, id);
         } else {
             throw new IllegalStateException("Player is offline");
         }
@@ -485,6 +895,9 @@ public class Backpack {
      * ItemStack representation in the player's inventory. It updates the item's
      * display name, lore, metadata, and NBT data to reflect current properties.
      * <p>
+     * Only the properties that changed since the backpack was loaded or last saved
+     * are written, and the item is left untouched if nothing changed.
+     * <p>
      * The method locates the backpack in the player's inventory using the
      * {@link #getItemSlotNumberInInventory()} method and replaces it with the
      * updated version.
@@ -494,25 +907,60 @@ public class Backpack {
      */
     public void save() {
         if (player.isOnline()) {
+            if (dirty.isEmpty()) {
+                return;
+            }
+
             int currentSlot = getItemSlotNumberInInventory();
             if (currentSlot > -1) {
+                revision++;
+                dirty.add(DataKeys.REVISION);
                 item = new ItemStack(item) {{
-                    SkullMeta meta = Utils.applySkinTexture((SkullMeta) getItemMeta(), color.getTextureID());
-                    meta.setDisplayName(Utils.colorify(display_name));
-                    meta.setLore(new ArrayList<>(List.of(Utils.colorify(String.format("&7%1$s Backpack (%2$s Slots)", size.getFriendlyName(), size.getInventorySlots())), "", Utils.colorify("&e&lLeft/Right-Click &eto open"), Utils.colorify("&e&lShift-Left-Click &eto customize"))) {{
-                        addAll(createContentsLore());
-                    }});
-                    meta.getPersistentDataContainer().set(BackpacksPlus.getBackpackDataKey(), PersistentDataType.STRING, getJSONData().toJSONString());
+                    SkullMeta meta = (SkullMeta) getItemMeta();
+                    if (dirty.contains(DataKeys.COLOR)) {
+                        Utils.applySkinTexture(meta, color.getTextureID());
+                    }
+                    if (dirty.contains(DataKeys.DISPLAY_NAME)) {
+                        meta.setDisplayName(Utils.colorify(display_name));
+                    }
+                    if (dirty.contains(DataKeys.SIZE) || (dirty.contains(DataKeys.CONTENTS) && !contents_recoded) || !meta.hasLore()) {
+                        meta.setLore(createLore(meta.getLore()));
+                    }
+                    write(meta.getPersistentDataContainer());
                     setItemMeta(meta);
                 }};
 
                 player.getInventory().setItem(currentSlot, item);
+                dirty.clear();
+                contents_recoded = false;
             }
         } else {
             throw new IllegalStateException("Player is offline");
         }
     }
 
+    /**
+     * Creates the lore of the physical backpack item.
+     * <p>
+     * The lore consists of a header describing the backpack size and controls,
+     * followed by the contents summary. If the contents didn't change, or were only
+     * re-encoded, the contents summary is reused from the previous lore instead of decoding the contents again.
+     *
+     * @param previousLore The current lore of the backpack item, or null if it has none.
+     * @return List of formatted strings making up the item lore.
+     * @see #createContentsLore()
+     * @since 1.1.0
+     */
+    private List<String> createLore(@Nullable List<String> previousLore) {
+        List<String> lore = new ArrayList<>(List.of(Utils.colorify(String.format("&7%1$s Backpack (%2$s Slots)", size.getFriendlyName(), size.getInventorySlots())), "", Utils.colorify("&e&lLeft/Right-Click &eto open"), Utils.colorify("&e&lShift-Left-Click &eto customize")));
+        if ((!dirty.contains(DataKeys.CONTENTS) || contents_recoded) && previousLore != null && previousLore.size() >= LORE_HEADER_LINES) {
+            lore.addAll(previousLore.subList(LORE_HEADER_LINES, previousLore.size()));
+        } else {
+            lore.addAll(createContentsLore());
+        }
+        return lore;
+    }
+
     /**
      * Attempts to expand the backpack to the next available size.
      * <p>
@@ -541,6 +989,8 @@ public class Backpack {
      * This method displays the backpack's contents in a custom inventory GUI,
      * allowing the player to add, remove, or rearrange items. It updates the
      * last opened timestamp and handles permission verification.
+     * <p>
+     * Backpacks in the cold tier are rehydrated and saved before the GUI opens.
      *
      * @param ignorePerm If {@code true}, bypasses permission checks entirely. If {@code false}, enforces the configured permission requirements. If {@code null}, behaves the same as {@code false}.
      * @throws IllegalStateException If the player is offline.
@@ -558,8 +1008,19 @@ public class Backpack {
                 }
             }
 
-            data.put("last_opened_at", System.currentTimeMillis());
-            update();
+            // Opened backpacks are likely to be opened again, so cold contents are rehydrated right away instead of being inflated on every open.
+            boolean rehydrated = ItemStackCodec.isCold(getContentsData());
+            if (rehydrated) {
+                recode(ItemStackCodec.toHotBytes(contents_data));
+                ColdStorage.recordRehydration();
+            }
+
+            // Not saved on its own, so that opening a backpack doesn't rewrite its item. The cache saves it when the backpack is evicted.
+            last_opened_at = System.currentTimeMillis();
+            dirty.add(DataKeys.LAST_OPENED_AT);
+            if (rehydrated) {
+                save();
+            }
             new BackpackGUI(player, this).open();
         } else {
             throw new IllegalStateException("Player is offline");
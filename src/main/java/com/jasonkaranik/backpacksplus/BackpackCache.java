@@ -0,0 +1,170 @@
+package com.jasonkaranik.backpacksplus;
+
+import com.jasonkaranik.backpacksplus.enums.DataKeys;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.persistence.PersistentDataContainer;
+import org.bukkit.persistence.PersistentDataType;
+
+import javax.annotation.Nonnull;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Caches the live Backpack instances of each online player, keyed by backpack ID.
+ * <p>
+ * Interacting with a backpack or navigating between backpacks reuses the cached
+ * instance instead of parsing the backpack item again. A cached instance is only
+ * reused while the item's revision matches its own, so backpack items that changed
+ * since they were loaded are parsed again.
+ * <p>
+ * Each player's cache holds up to {@value #MAX_BACKPACKS_PER_PLAYER} backpacks,
+ * evicting the least recently used one when full, and is cleared when the player quits.
+ * Evicted backpacks with unsaved changes, such as the time they were last opened, are
+ * saved to their item first, so those changes aren't lost.
+ *
+ * @see Backpack
+ * @since 1.1.0
+ */
+public class BackpackCache {
+    private static final int MAX_BACKPACKS_PER_PLAYER = 16;
+
+    private static final Map<UUID, Map<String, Backpack>> caches = new HashMap<>();
+
+    private static long hits = 0L;
+
+    private static long misses = 0L;
+
+    /**
+     * Retrieves the Backpack instance of a backpack item, loading it if it isn't cached.
+     * <p>
+     * Backpack items without an ID, such as items still using the legacy data layout,
+     * are loaded but not cached until they have been saved with an ID.
+     *
+     * @param player The player who owns the backpack.
+     * @param item   The backpack item.
+     * @return The Backpack instance of the item.
+     * @throws IllegalArgumentException If either the provided player or item parameter is null, or the item has no metadata.
+     * @see Backpack#Backpack(Player, ItemStack)
+     * @since 1.1.0
+     */
+    @Nonnull
+    public static Backpack get(Player player, ItemStack item) {
+        if (player != null && item != null) {
+            // Items without metadata have no ID either, so hasItemMeta(), which copies the metadata as well, isn't checked first.
+            ItemMeta meta = item.getItemMeta();
+            if (meta != null) {
+                PersistentDataContainer container = meta.getPersistentDataContainer();
+                String id = container.get(DataKeys.ID.getKey(), PersistentDataType.STRING);
+                if (id != null) {
+                    long revision = container.getOrDefault(DataKeys.REVISION.getKey(), PersistentDataType.LONG, 0L);
+                    Map<String, Backpack> cache = caches.computeIfAbsent(player.getUniqueId(), uuid -> new LinkedHashMap<>(MAX_BACKPACKS_PER_PLAYER, 0.75F, true) {
+                        @Override
+                        protected boolean removeEldestEntry(Map.Entry<String, Backpack> eldest) {
+                            if (size() > MAX_BACKPACKS_PER_PLAYER) {
+                                save(player, eldest.getValue());
+                                return true;
+                            }
+                            return false;
+                        }
+                    });
+
+                    Backpack backpack = cache.get(id);
+                    if (backpack != null && backpack.getRevision() == revision) {
+                        hits++;
+                        return backpack;
+                    }
+
+                    misses++;
+                    backpack = new Backpack(player, item);
+                    cache.put(id, backpack);
+                    return backpack;
+                }
+            }
+
+            misses++;
+            return new Backpack(player, item);
+        } else {
+            throw new IllegalArgumentException("Player and Item cannot be null");
+        }
+    }
+
+    /**
+     * Removes all cached backpacks of a player, saving their unsaved changes first.
+     * <p>
+     * This must be called while the player's inventory can still be modified, e.g. when the player quits.
+     *
+     * @param player The player whose cached backpacks to remove.
+     * @throws IllegalArgumentException If the provided player is null.
+     * @since 1.1.0
+     */
+    public static void evict(Player player) {
+        if (player != null) {
+            Map<String, Backpack> cache = caches.remove(player.getUniqueId());
+            if (cache != null) {
+                for (Backpack backpack : cache.values()) {
+                    save(player, backpack);
+                }
+            }
+        } else {
+            throw new IllegalArgumentException("Player cannot be null");
+        }
+    }
+
+    /**
+     * Saves the unsaved changes of a cached backpack, unless its item changed since it was loaded.
+     * <p>
+     * Only the changed properties are written, so a backpack that was just opened doesn't have its contents encoded again.
+     *
+     * @param player   The player who owns the backpack.
+     * @param backpack The cached backpack to save.
+     * @since 1.1.0
+     */
+    private static void save(Player player, Backpack backpack) {
+        if (backpack.hasUnsavedChanges() && player.isOnline()) {
+            int slot = backpack.getItemSlotNumberInInventory();
+            if (slot > -1) {
+                ItemStack item = player.getInventory().getItem(slot);
+                if (item != null && getRevision(item) == backpack.getRevision()) {
+                    backpack.save();
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the revision of a backpack item.
+     *
+     * @param item The backpack item.
+     * @return The revision of the backpack, or 0 if it was never saved.
+     */
+    private static long getRevision(ItemStack item) {
+        ItemMeta meta = item.getItemMeta();
+        return meta != null ? meta.getPersistentDataContainer().getOrDefault(DataKeys.REVISION.getKey(), PersistentDataType.LONG, 0L) : 0L;
+    }
+
+    /**
+     * Retrieves the number of lookups that were served from the cache.
+     *
+     * @return The number of cache hits since the plugin was enabled.
+     * @see #getMisses()
+     * @since 1.1.0
+     */
+    public static long getHits() {
+        return hits;
+    }
+
+    /**
+     * Retrieves the number of lookups that had to load the backpack item.
+     *
+     * @return The number of cache misses since the plugin was enabled.
+     * @see #getHits()
+     * @since 1.1.0
+     */
+    public static long getMisses() {
+        return misses;
+    }
+}
@@ -0,0 +1,121 @@
+package com.jasonkaranik.backpacksplus;
+
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Keeps track of the inventory slots that hold backpack items for each online player.
+ * <p>
+ * Each player has an index mapping backpack IDs to the slot holding that backpack,
+ * built by scanning the player's inventory once and reading only the ID of each backpack.
+ * Inventory changes that may move backpacks (clicking, dragging, picking up, dropping
+ * and swapping items) invalidate the index, which is then rebuilt on the next lookup.
+ * <p>
+ * Every lookup is verified against the item currently in the indexed slot, so an index
+ * that missed an inventory change is detected and rebuilt instead of returning a wrong slot.
+ *
+ * @see Backpack#getItemSlotNumberInInventory()
+ * @since 1.1.0
+ */
+public class BackpackIndex {
+    private static final Map<UUID, Map<String, Integer>> indexes = new HashMap<>();
+
+    /**
+     * Finds the inventory slot holding the backpack with a specific ID.
+     * <p>
+     * The slot is looked up in the player's index and verified against the item
+     * currently in that slot. If the index is missing or stale, it is rebuilt first.
+     *
+     * @param player The player whose inventory to search.
+     * @param id     The ID of the backpack to find.
+     * @return The inventory slot index where the backpack is located, or -1 if not found.
+     * @throws IllegalArgumentException If the provided player or ID is null.
+     * @since 1.1.0
+     */
+    public static int getSlot(Player player, String id) {
+        if (player != null && id != null) {
+            Map<String, Integer> index = indexes.get(player.getUniqueId());
+            if (index != null) {
+                Integer slot = index.get(id);
+                if (slot != null && id.equals(BackpacksPlus.getBackpackID(player.getInventory().getItem(slot)))) {
+                    return slot;
+                }
+            }
+
+            Integer slot = rebuild(player).get(id);
+            return slot != null ? slot : -1;
+        } else {
+            throw new IllegalArgumentException("Player and ID cannot be null");
+        }
+    }
+
+    /**
+     * Retrieves the inventory slots holding backpack items, in ascending order.
+     * <p>
+     * The slots are taken from the player's index, which is rebuilt first if it's missing.
+     * Unlike {@link #getSlot(Player, String)}, the slots aren't verified against the items
+     * currently in them, so callers should verify the slot they end up using and
+     * {@link #invalidate(Player)} the index if it turns out to be stale.
+     *
+     * @param player The player whose inventory to search.
+     * @return The sorted inventory slot indexes of the player's backpacks.
+     * @throws IllegalArgumentException If the provided player is null.
+     * @since 1.1.0
+     */
+    public static int[] getSlots(Player player) {
+        if (player != null) {
+            Map<String, Integer> index = indexes.get(player.getUniqueId());
+            if (index == null) {
+                index = rebuild(player);
+            }
+            return index.values().stream().mapToInt(Integer::intValue).sorted().toArray();
+        } else {
+            throw new IllegalArgumentException("Player cannot be null");
+        }
+    }
+
+    /**
+     * Marks a player's index as stale, so that it is rebuilt on the next lookup.
+     * <p>
+     * This should be called whenever the player's inventory may have changed in a way
+     * that moves, adds or removes backpack items.
+     *
+     * @param player The player whose index to invalidate.
+     * @throws IllegalArgumentException If the provided player is null.
+     * @since 1.1.0
+     */
+    public static void invalidate(Player player) {
+        if (player != null) {
+            indexes.remove(player.getUniqueId());
+        } else {
+            throw new IllegalArgumentException("Player cannot be null");
+        }
+    }
+
+    /**
+     * Rebuilds a player's index by scanning their inventory.
+     * <p>
+     * Only the ID of each backpack item is read, so no backpack contents are decoded.
+     * If the same ID appears in multiple slots, the first slot is indexed.
+     *
+     * @param player The player whose index to rebuild.
+     * @return The rebuilt index.
+     * @since 1.1.0
+     */
+    private static Map<String, Integer> rebuild(Player player) {
+        Map<String, Integer> index = new HashMap<>();
+        ItemStack[] contents = player.getInventory().getContents();
+        for (int i = 0; i < contents.length; i++) {
+            String id = BackpacksPlus.getBackpackID(contents[i]);
+            if (id != null) {
+                index.putIfAbsent(id, i);
+            }
+        }
+        indexes.put(player.getUniqueId(), index);
+        return index;
+    }
+}
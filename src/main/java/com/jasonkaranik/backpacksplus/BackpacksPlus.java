@@ -1,20 +1,37 @@
 package com.jasonkaranik.backpacksplus;
 
 import com.jasonkaranik.backpacksplus.commands.BackpackConfigCommand;
+import com.jasonkaranik.backpacksplus.commands.BackpackStorageCommand;
 import com.jasonkaranik.backpacksplus.enums.BackpackColor;
+import com.jasonkaranik.backpacksplus.enums.DataKeys;
+import com.jasonkaranik.backpacksplus.enums.Messages;
+import com.jasonkaranik.backpacksplus.enums.PremadeItems;
+import com.jasonkaranik.backpacksplus.enums.StorageMode;
+import com.jasonkaranik.backpacksplus.storage.BackpackStore;
+import com.jasonkaranik.backpacksplus.storage.FileBackpackStore;
+import com.jasonkaranik.backpacksplus.storage.MigratingBackpackStore;
+import com.jasonkaranik.backpacksplus.storage.SegmentBackpackStore;
+import com.jasonkaranik.backpacksplus.storage.WriteBehindBackpackStore;
+import com.jasonkaranik.backpacksplus.utils.GUIListener;
 import com.jasonkaranik.backpacksplus.utils.Utils;
 import com.jasonkaranik.json.simple.extended.JSONObject;
 import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.NamespacedKey;
+import org.bukkit.entity.Player;
 import org.bukkit.event.HandlerList;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.ShapedRecipe;
 import org.bukkit.inventory.meta.ItemMeta;
 import org.bukkit.inventory.meta.SkullMeta;
+import org.bukkit.persistence.PersistentDataContainer;
 import org.bukkit.persistence.PersistentDataType;
 import org.bukkit.plugin.java.JavaPlugin;
 
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Map;
 import java.util.UUID;
 
@@ -36,9 +53,10 @@ import java.util.UUID;
  * @since 1.0.0
  */
 public final class BackpacksPlus extends JavaPlugin {
-    private static NamespacedKey backpack_data_key;
     private static BackpacksPlus plugin;
 
+    private static BackpackStore backpack_store;
+
     /**
      * Creates a new backpack item instance.
      * <p>
@@ -51,9 +69,9 @@ public final class BackpacksPlus extends JavaPlugin {
         return new ItemStack(Material.PLAYER_HEAD) {{
             ItemMeta meta = Utils.applySkinTexture((SkullMeta) getItemMeta(), Config.getDefaultBackpackColor().getTextureID());
             meta.setDisplayName(Utils.colorify(Config.getDefaultBackpackDisplayName()));
-            JSONObject data = new JSONObject();
-            data.put("id", UUID.randomUUID().toString());
-            meta.getPersistentDataContainer().set(backpack_data_key, PersistentDataType.STRING, data.toJSONString());
+            PersistentDataContainer container = meta.getPersistentDataContainer();
+            container.set(DataKeys.MARKER.getKey(), PersistentDataType.BYTE, (byte) 1);
+            container.set(DataKeys.ID.getKey(), PersistentDataType.STRING, UUID.randomUUID().toString());
             setItemMeta(meta);
         }};
     }
@@ -72,24 +90,91 @@ public final class BackpacksPlus extends JavaPlugin {
     }
 
     /**
-     * Retrieves the NamespacedKey used for backpack data storage.
+     * Retrieves the store holding the contents of backpacks kept on the server.
+     * <p>
+     * The store is created when the plugin is enabled if the storage mode keeps contents on the
+     * server, or if contents were kept on the server before, so that they can still be read after
+     * the storage mode is changed back to keeping contents in the item. Otherwise, it's only
+     * created when it's first needed, and servers keeping all contents in items never start its
+     * background tasks.
+     *
+     * @return The backpack store.
+     * @throws IllegalStateException If the store had to be created and couldn't be.
+     * @see Config#getStorageMode()
+     * @since 1.1.0
+     */
+    @Nonnull
+    public static synchronized BackpackStore getBackpackStore() {
+        if (backpack_store == null) {
+            backpack_store = createBackpackStore();
+        }
+        return backpack_store;
+    }
+
+    /**
+     * Checks if the backpack store was created, without creating it.
+     * <p>
+     * If it wasn't, no backpack contents have been kept on the server, so backpacks kept in items don't have to look for their contents in the store.
+     *
+     * @return {@code true} if the backpack store was created, {@code false} otherwise.
+     * @see #getBackpackStore()
+     * @since 1.1.0
+     */
+    static synchronized boolean hasBackpackStore() {
+        return backpack_store != null;
+    }
+
+    /**
+     * Creates the backpack store for the configured storage mode, replaying any changes left in its journal.
+     * <p>
+     * Backpacks are moved over from the store of the other storage mode as they are saved.
+     *
+     * @return The backpack store.
+     * @throws IllegalStateException If the store couldn't be created.
+     * @since 1.1.0
+     */
+    @Nonnull
+    private static BackpackStore createBackpackStore() {
+        Path backpacks_folder = getBackpacksFolder();
+        BackpackStore file_store = new FileBackpackStore(backpacks_folder);
+        BackpackStore segment_store = new SegmentBackpackStore(backpacks_folder.resolve("segments"));
+        BackpackStore store = Config.getStorageMode() == StorageMode.SEGMENT ? new MigratingBackpackStore(segment_store, file_store) : new MigratingBackpackStore(file_store, segment_store);
+        return new WriteBehindBackpackStore(store, backpacks_folder);
+    }
+
+    private static Path getBackpacksFolder() {
+        return plugin.getDataFolder().toPath().resolve("backpacks");
+    }
+
+    /**
+     * Retrieves the NamespacedKey used for legacy backpack data storage.
      * <p>
-     * This key is used to identify and access backpack data stored in
-     * item meta's PersistentDataContainer.
+     * This key was used to store all backpack data as a single JSON string in
+     * item meta's PersistentDataContainer. Backpack data is now stored under the
+     * keys defined in {@link DataKeys}, and this key is only read to migrate older backpacks.
      *
-     * @return The NamespacedKey for backpack data.
+     * @return The NamespacedKey for legacy backpack data.
      * @see org.bukkit.persistence.PersistentDataContainer
+     * @see DataKeys
      * @since 1.0.0
+     * @deprecated Use the keys defined in {@link DataKeys} instead.
      */
+    @Deprecated
     public static NamespacedKey getBackpackDataKey() {
-        return backpack_data_key;
+        return DataKeys.LEGACY_DATA.getKey();
     }
 
     /**
      * Determines if an ItemStack represents a backpack item.
      * <p>
      * Checks for the material type and presence of a specific persistent data tag
-     * that identifies backpack items.
+     * that identifies backpack items. Backpacks still using the legacy data layout
+     * are recognized as well.
+     * <p>
+     * Items other than player heads are rejected without reading their metadata. The metadata
+     * of player heads is copied once, as checking {@link ItemStack#hasItemMeta()} first copies
+     * the metadata of inventory items as well, and the small marker key is checked before the
+     * legacy data key.
      *
      * @param item The ItemStack to check.
      * @return {@code true} if the item is a backpack, {@code false} otherwise.
@@ -98,21 +183,49 @@ public final class BackpacksPlus extends JavaPlugin {
     public static boolean isBackpackItem(ItemStack item) {
         if (item != null) {
             if (item.getType() == Material.PLAYER_HEAD) {
-                if (item.hasItemMeta()) {
-                    ItemMeta meta = item.getItemMeta();
-                    return meta.getPersistentDataContainer().has(backpack_data_key, PersistentDataType.STRING);
+                ItemMeta meta = item.getItemMeta();
+                if (meta != null) {
+                    PersistentDataContainer container = meta.getPersistentDataContainer();
+                    return container.has(DataKeys.MARKER.getKey(), PersistentDataType.BYTE) || container.has(DataKeys.LEGACY_DATA.getKey(), PersistentDataType.STRING);
                 }
             }
         }
         return false;
     }
 
+    /**
+     * Retrieves the unique identifier of a backpack item without loading the whole backpack.
+     * <p>
+     * Only the ID is read from the item's persistent data, so the backpack contents
+     * are never decoded. Backpacks still using the legacy data layout are supported as well.
+     *
+     * @param item The ItemStack to read the ID from.
+     * @return The ID of the backpack, or {@code null} if the item is not a backpack or has no ID.
+     * @see Backpack#getID()
+     * @since 1.1.0
+     */
+    @Nullable
+    public static String getBackpackID(ItemStack item) {
+        if (item != null) {
+            if (item.getType() == Material.PLAYER_HEAD) {
+                ItemMeta meta = item.getItemMeta();
+                if (meta != null) {
+                    PersistentDataContainer container = meta.getPersistentDataContainer();
+                    if (container.has(DataKeys.ID.getKey(), PersistentDataType.STRING)) {
+                        return container.get(DataKeys.ID.getKey(), PersistentDataType.STRING);
+                    } else if (container.has(DataKeys.LEGACY_DATA.getKey(), PersistentDataType.STRING)) {
+                        return (String) new JSONObject(container.get(DataKeys.LEGACY_DATA.getKey(), PersistentDataType.STRING)).get("id");
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
     @Override
     public void onEnable() {
         plugin = this;
 
-        backpack_data_key = new NamespacedKey(this, "backpack_data");
-
         UpdateChecker.check();
 
         if (!this.getDataFolder().exists()) {
@@ -126,11 +239,26 @@ public final class BackpacksPlus extends JavaPlugin {
         }
 
         Config.update();
+        Messages.load();
+
+        if (Config.getStorageMode() != StorageMode.ITEM || Files.isDirectory(getBackpacksFolder())) {
+            try {
+                getBackpackStore();
+            } catch (IllegalStateException e) {
+                Utils.logSevereErrorAndShutdown(e.getMessage());
+                return;
+            }
+        }
+
+        for (BackpackColor color : BackpackColor.values()) {
+            Utils.getSkinProfile(color.getTextureID());
+        }
+        PremadeItems.load();
 
         ItemStack backpack_item = new ItemStack(Material.PLAYER_HEAD) {{
             ItemMeta meta = Utils.applySkinTexture((SkullMeta) getItemMeta(), BackpackColor.BROWN.getTextureID());
             meta.setDisplayName(Utils.colorify("&aBackpack"));
-            meta.getPersistentDataContainer().set(backpack_data_key, PersistentDataType.STRING, "{}");
+            meta.getPersistentDataContainer().set(DataKeys.MARKER.getKey(), PersistentDataType.BYTE, (byte) 1);
             setItemMeta(meta);
         }};
 
@@ -144,13 +272,27 @@ public final class BackpacksPlus extends JavaPlugin {
         Bukkit.addRecipe(backpack_item_recipe);
 
         this.getCommand("backpackconfig").setExecutor(new BackpackConfigCommand());
+        this.getCommand("backpackstorage").setExecutor(new BackpackStorageCommand());
 
         Bukkit.getPluginManager().registerEvents(new Listeners(), this);
+        Bukkit.getPluginManager().registerEvents(new GUIListener(), this);
     }
 
     @Override
     public void onDisable() {
         HandlerList.unregisterAll(this);
+        Config.flush();
+        // Players are only removed after plugins are disabled, so their cached backpacks are saved now.
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            BackpackCache.evict(player);
+            BackpackIndex.invalidate(player);
+        }
+        synchronized (BackpacksPlus.class) {
+            if (backpack_store != null) {
+                backpack_store.close();
+                backpack_store = null;
+            }
+        }
         Bukkit.getScheduler().cancelTasks(this);
     }
 }
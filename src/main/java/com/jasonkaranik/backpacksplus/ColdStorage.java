@@ -0,0 +1,255 @@
+package com.jasonkaranik.backpacksplus;
+
+import com.jasonkaranik.backpacksplus.enums.DataKeys;
+import com.jasonkaranik.backpacksplus.enums.Messages;
+import com.jasonkaranik.backpacksplus.enums.StorageMode;
+import com.jasonkaranik.backpacksplus.storage.BackpackStore;
+import com.jasonkaranik.backpacksplus.storage.WriteBehindBackpackStore;
+import com.jasonkaranik.backpacksplus.utils.ItemStackCodec;
+import org.bukkit.Bukkit;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.persistence.PersistentDataContainer;
+import org.bukkit.persistence.PersistentDataType;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves backpacks that weren't opened for a while to the cold tier, and reports on the tiers.
+ * <p>
+ * Most backpacks are never opened again once their owners stop playing, so when a player
+ * joins, the backpacks in their inventory that weren't opened for the configured number of
+ * days are moved to the cold tier. Their contents are compressed as much as possible, either
+ * in the item or in the backpack store, depending on where they are kept. Cold backpacks are
+ * rehydrated the next time they are opened.
+ * <p>
+ * Backpacks already in the cold tier are flagged as such, and are skipped without loading
+ * their contents. The contents of the other backpacks are loaded and compressed in the
+ * background, and only written back on the main thread if the backpack didn't change in the meantime.
+ *
+ * @see Config#getColdTierAfterDays()
+ * @see Backpack#openContainer(Boolean)
+ * @since 1.1.0
+ */
+public class ColdStorage {
+    private static long moved = 0L;
+
+    private static long rehydrated = 0L;
+
+    private static long bytes_saved = 0L;
+
+    /**
+     * Moves the backpacks in a player's inventory that weren't opened for the configured number of days to the cold tier.
+     * <p>
+     * Only the data of each backpack item is read on the calling thread. The contents are loaded
+     * from the backpack store if needed and compressed asynchronously, and the backpacks are
+     * saved on the main thread once that's done, if the player is still online.
+     *
+     * @param player The player whose backpacks to move.
+     * @throws IllegalArgumentException If the provided player is null.
+     * @since 1.1.0
+     */
+    public static void moveToColdTier(Player player) {
+        if (player != null) {
+            int days = Config.getColdTierAfterDays();
+            if (days < 0) {
+                return;
+            }
+
+            long cutoff = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(days);
+            List<Candidate> candidates = new ArrayList<>();
+            for (ItemStack item : player.getInventory().getContents()) {
+                if (BackpacksPlus.isBackpackItem(item)) {
+                    Candidate candidate = getCandidate(item, cutoff);
+                    if (candidate != null) {
+                        candidates.add(candidate);
+                    }
+                }
+            }
+            if (candidates.isEmpty()) {
+                return;
+            }
+
+            // The store is only needed, and only created, if the contents of some backpacks are kept in it.
+            BackpackStore store = candidates.stream().anyMatch(candidate -> candidate.contents == null) ? BackpacksPlus.getBackpackStore() : null;
+            Bukkit.getScheduler().runTaskAsynchronously(BackpacksPlus.getPlugin(), () -> {
+                List<Candidate> prepared = new ArrayList<>();
+                for (Candidate candidate : candidates) {
+                    try {
+                        byte[] contents = candidate.contents != null ? candidate.contents : store.load(candidate.id);
+                        if (contents != null && !ItemStackCodec.isCold(contents)) {
+                            byte[] cold_contents = ItemStackCodec.toColdBytes(contents);
+                            if (cold_contents != contents) {
+                                candidate.cold_contents = cold_contents;
+                                candidate.bytes_saved = contents.length - cold_contents.length;
+                                prepared.add(candidate);
+                            }
+                        }
+                    } catch (IllegalStateException e) {
+                        BackpacksPlus.getPlugin().getLogger().warning(e.getMessage());
+                    }
+                }
+                if (prepared.isEmpty()) {
+                    return;
+                }
+
+                Bukkit.getScheduler().runTask(BackpacksPlus.getPlugin(), () -> {
+                    if (!player.isOnline()) {
+                        return;
+                    }
+                    for (Candidate candidate : prepared) {
+                        int slot = BackpackIndex.getSlot(player, candidate.id);
+                        if (slot > -1) {
+                            Backpack backpack = BackpackCache.get(player, player.getInventory().getItem(slot));
+                            if (backpack.moveToColdTier(cutoff, candidate.revision, candidate.cold_contents)) {
+                                backpack.save();
+                                moved++;
+                                bytes_saved += candidate.bytes_saved;
+                            }
+                        }
+                    }
+                });
+            });
+        } else {
+            throw new IllegalArgumentException("Player cannot be null");
+        }
+    }
+
+    /**
+     * Reads the data needed to move a backpack item to the cold tier, without loading its contents from the backpack store.
+     *
+     * @param item   The backpack item.
+     * @param cutoff The time, in milliseconds since the epoch, before which the backpack must have been last opened.
+     * @return The backpack's data, or null if it's already in the cold tier, was opened or created since the cutoff, or hasn't been saved with the current data layout yet.
+     */
+    @Nullable
+    private static Candidate getCandidate(ItemStack item, long cutoff) {
+        ItemMeta meta = item.getItemMeta();
+        if (meta == null) {
+            return null;
+        }
+        PersistentDataContainer container = meta.getPersistentDataContainer();
+        if (container.has(DataKeys.COLD.getKey(), PersistentDataType.BYTE) || container.has(DataKeys.LEGACY_DATA.getKey(), PersistentDataType.STRING)) {
+            return null;
+        }
+        String id = container.get(DataKeys.ID.getKey(), PersistentDataType.STRING);
+        Long created_at = container.get(DataKeys.CREATED_AT.getKey(), PersistentDataType.LONG);
+        long last_opened_at = container.getOrDefault(DataKeys.LAST_OPENED_AT.getKey(), PersistentDataType.LONG, -1L);
+        if (id == null || created_at == null || Math.max(created_at, last_opened_at) >= cutoff) {
+            return null;
+        }
+        byte[] contents = container.get(DataKeys.CONTENTS.getKey(), PersistentDataType.BYTE_ARRAY);
+        // Contents kept in the item stay there in this storage mode, unless some were ever kept in the store.
+        if (contents == null && Config.getStorageMode() == StorageMode.ITEM && !BackpacksPlus.hasBackpackStore()) {
+            return null;
+        }
+        return new Candidate(id, container.getOrDefault(DataKeys.REVISION.getKey(), PersistentDataType.LONG, 0L), contents);
+    }
+
+    /**
+     * Records that a backpack was rehydrated from the cold tier.
+     *
+     * @since 1.1.0
+     */
+    static void recordRehydration() {
+        rehydrated++;
+    }
+
+    /**
+     * Sends a report on the cold tier to a command sender.
+     * <p>
+     * The report covers the backpacks moved and rehydrated since the server started, the
+     * backpack cache, the queue of writes to the backpack store, and the hot and cold backpacks
+     * held by the store.
+     * Backpacks kept in items can't be counted, as they may be anywhere in the world. The store
+     * is scanned asynchronously, reading only the header of each backpack's contents.
+     *
+     * @param sender The command sender to send the report to.
+     * @throws IllegalArgumentException If the provided sender is null.
+     * @since 1.1.0
+     */
+    public static void report(CommandSender sender) {
+        if (sender != null) {
+            sender.sendMessage(String.format(Messages.STORAGE_REPORT_SESSION.getMessage(), moved, formatBytes(bytes_saved), rehydrated));
+            sender.sendMessage(String.format(Messages.STORAGE_REPORT_CACHE.getMessage(), BackpackCache.getHits(), BackpackCache.getMisses()));
+
+            BackpackStore store = BackpacksPlus.getBackpackStore();
+            if (store instanceof WriteBehindBackpackStore write_behind_store) {
+                sender.sendMessage(String.format(Messages.STORAGE_REPORT_WRITES.getMessage(), write_behind_store.getPendingWrites(), write_behind_store.getMaxPendingWrites(), write_behind_store.getCoalescedWrites(), write_behind_store.getFlushedWrites(), write_behind_store.getBackPressureStalls()));
+            }
+
+            sender.sendMessage(Messages.STORAGE_REPORT_SCANNING.getMessage());
+            Bukkit.getScheduler().runTaskAsynchronously(BackpacksPlus.getPlugin(), () -> {
+                long hot = 0L;
+                long hot_bytes = 0L;
+                long cold = 0L;
+                long cold_bytes = 0L;
+                long cold_bytes_saved = 0L;
+                for (String id : store.getIDs()) {
+                    // Only the header is loaded, except for paged contents, which are only cold if all of their pages are.
+                    byte[] contents = store.loadHeader(id, ItemStackCodec.getSummaryLength());
+                    if (contents != null && ItemStackCodec.isPaged(contents)) {
+                        contents = store.load(id);
+                    }
+                    int length = store.getLength(id);
+                    if (contents != null && length >= 0) {
+                        if (ItemStackCodec.isCold(contents)) {
+                            cold++;
+                            cold_bytes += length;
+                            cold_bytes_saved += ItemStackCodec.getUncompressedLength(contents) - length;
+                        } else {
+                            hot++;
+                            hot_bytes += length;
+                        }
+                    }
+                }
+
+                String message = String.format(Messages.STORAGE_REPORT_STORE.getMessage(), hot, formatBytes(hot_bytes), cold, formatBytes(cold_bytes), formatBytes(cold_bytes_saved));
+                Bukkit.getScheduler().runTask(BackpacksPlus.getPlugin(), () -> {
+                    if (!(sender instanceof Player player) || player.isOnline()) {
+                        sender.sendMessage(message);
+                    }
+                });
+            });
+        } else {
+            throw new IllegalArgumentException("Sender cannot be null");
+        }
+    }
+
+    private static String formatBytes(long bytes) {
+        if (bytes < 1024) {
+            return String.format("%1$s B", bytes);
+        }
+        int unit = (63 - Long.numberOfLeadingZeros(bytes)) / 10;
+        return String.format("%1$.1f %2$siB", bytes / (double) (1L << (unit * 10)), "KMGTPE".charAt(unit - 1));
+    }
+
+    /**
+     * A backpack that may be moved to the cold tier, with the contents prepared for it in the background.
+     */
+    private static class Candidate {
+        private final String id;
+
+        private final long revision;
+
+        /**
+         * The contents kept in the item, or {@code null} if they are kept in the backpack store.
+         */
+        private final byte[] contents;
+
+        private byte[] cold_contents;
+
+        private int bytes_saved;
+
+        private Candidate(String id, long revision, @Nullable byte[] contents) {
+            this.id = id;
+            this.revision = revision;
+            this.contents = contents;
+        }
+    }
+}
@@ -2,17 +2,27 @@ package com.jasonkaranik.backpacksplus;
 
 import com.jasonkaranik.backpacksplus.enums.BackpackColor;
 import com.jasonkaranik.backpacksplus.enums.BackpackSize;
+import com.jasonkaranik.backpacksplus.enums.StorageMode;
 import com.jasonkaranik.backpacksplus.utils.ItemStackCodec;
 import com.jasonkaranik.backpacksplus.utils.Utils;
 import com.jasonkaranik.json.simple.extended.JSONObject;
+import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.inventory.ItemStack;
+import org.bukkit.scheduler.BukkitTask;
 
 import javax.annotation.Nonnull;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Manages configuration settings and persistence for the BackpacksPlus plugin.
@@ -26,7 +36,8 @@ import java.nio.file.Path;
  * <p>
  * The configuration is stored in JSON format and automatically creates missing keys
  * with default values during initialization. All configuration changes are persisted
- * to disk automatically.
+ * to disk automatically, with changes made in quick succession coalesced into a single
+ * write performed off the main thread.
  * <p>
  * Configuration categories include:
  * <ul>
@@ -38,12 +49,28 @@ import java.nio.file.Path;
  * @since 1.0.0
  */
 public class Config {
+    private static final long SAVE_DELAY_TICKS = 20L;
+
     private static final Path config_file_path = Path.of(BackpacksPlus.getPlugin().getDataFolder().getAbsolutePath(), "config.json");
 
+    private static final Path temp_config_file_path = Path.of(BackpacksPlus.getPlugin().getDataFolder().getAbsolutePath(), "config.json.tmp");
+
+    private static final Object write_lock = new Object();
+
+    private static BukkitTask save_task = null;
+
+    private static long save_sequence = 0L;
+
+    private static long written_sequence = 0L;
+
     private static JSONObject config = null;
 
     private static boolean pendingChange = false;
 
+    private static Map<BackpackSize, ItemStack[]> expansion_costs = new EnumMap<>(BackpackSize.class);
+
+    private static Map<BackpackSize, List<String>> expansion_cost_lores = new EnumMap<>(BackpackSize.class);
+
     /**
      * Loads or updates the plugin's configuration file, ensuring all required settings exist.
      * <p>
@@ -107,6 +134,8 @@ public class Config {
         addMissing("backpack.expansion_cost.LARGE", ItemStackCodec.encode(new ItemStack[]{new ItemStack(Material.RABBIT_HIDE, 16), new ItemStack(Material.CHEST, 1)}));
         addMissing("backpack.expansion_cost.GREATER", ItemStackCodec.encode(new ItemStack[]{new ItemStack(Material.RABBIT_HIDE, 32), new ItemStack(Material.CHEST, 1)}));
         addMissing("backpack.expansion_cost.JUMBO", ItemStackCodec.encode(new ItemStack[]{new ItemStack(Material.RABBIT_HIDE, 64), new ItemStack(Material.CHEST, 1)}));
+        addMissing("backpack.expansion_cost.COLOSSAL", ItemStackCodec.encode(new ItemStack[]{new ItemStack(Material.RABBIT_HIDE, 64), new ItemStack(Material.CHEST, 2)}));
+        addMissing("backpack.expansion_cost.TITANIC", ItemStackCodec.encode(new ItemStack[]{new ItemStack(Material.RABBIT_HIDE, 64), new ItemStack(Material.SHULKER_SHELL, 2)}));
 
         // BACKPACK - DEFAULTS
 
@@ -125,10 +154,54 @@ public class Config {
         addMissing("backpack.permissions.rename_backpacks", true);
         addMissing("backpack.permissions.expand_backpacks", true);
 
+        // BACKPACK - STORAGE
+
+        addMissing("backpack.storage", new JSONObject());
+        addMissing("backpack.storage.compression_threshold", 1024);
+        addMissing("backpack.storage.mode", StorageMode.ITEM.name());
+        addMissing("backpack.storage.cold_after_days", 30);
+
         if (pendingChange) {
             pendingChange = false;
-            save();
+            flush();
         }
+
+        Map<BackpackSize, ItemStack[]> costs = new EnumMap<>(BackpackSize.class);
+        for (BackpackSize size : BackpackSize.values()) {
+            costs.put(size, ItemStackCodec.decode((String) config.get(String.format("backpack.expansion_cost.%1$s", size.name()))));
+        }
+        cacheExpansionCosts(costs);
+
+        ItemStackCodec.setCompressionThreshold(getContentsCompressionThreshold());
+    }
+
+    /**
+     * Replaces the decoded expansion costs and their lore with a new snapshot.
+     * <p>
+     * The expansion costs are stored serialized in the configuration, so they are decoded
+     * once here instead of every time they're retrieved. The lore lines describing each
+     * cost are built at the same time, so rendering them doesn't require any decoding or
+     * formatting either.
+     *
+     * @param costs The decoded expansion costs of every backpack size.
+     * @see #getBackpackSizeExpansionCost(BackpackSize)
+     * @see #getBackpackSizeExpansionCostLore(BackpackSize)
+     * @since 1.1.0
+     */
+    private static void cacheExpansionCosts(Map<BackpackSize, ItemStack[]> costs) {
+        Map<BackpackSize, List<String>> lores = new EnumMap<>(BackpackSize.class);
+        for (Map.Entry<BackpackSize, ItemStack[]> entry : costs.entrySet()) {
+            List<String> lore = new ArrayList<>();
+            for (ItemStack item : entry.getValue()) {
+                if (item != null && item.getType() != Material.AIR) {
+                    lore.add(Utils.colorify(String.format("&8 - &a%1$s &8x%2$s", Utils.getItemName(item), item.getAmount())));
+                }
+            }
+            lores.put(entry.getKey(), Collections.unmodifiableList(lore));
+        }
+
+        expansion_costs = costs;
+        expansion_cost_lores = lores;
     }
 
     /**
@@ -154,26 +227,83 @@ public class Config {
     }
 
     /**
-     * Saves the current configuration settings to the JSON configuration file on disk.
+     * Schedules the current configuration settings to be saved to the JSON configuration file on disk.
+     * <p>
+     * The save is delayed by {@value #SAVE_DELAY_TICKS} ticks, and any further changes made
+     * in the meantime are included in the same save. Once the delay has passed, the
+     * configuration is serialized on the main thread and written to disk asynchronously,
+     * so disk latency never stalls the server.
+     * <p>
+     * This method is called by every setter, ensuring that all modifications are persisted.
+     *
+     * @see #flush()
+     * @since 1.0.0
+     */
+    private static void save() {
+        if (save_task == null) {
+            save_task = Bukkit.getScheduler().runTaskLater(BackpacksPlus.getPlugin(), () -> {
+                save_task = null;
+                String json = config.toJSONString();
+                long sequence = ++save_sequence;
+                Bukkit.getScheduler().runTaskAsynchronously(BackpacksPlus.getPlugin(), () -> write(json, sequence));
+            }, SAVE_DELAY_TICKS);
+        }
+    }
+
+    /**
+     * Immediately saves the current configuration settings to the JSON configuration file on disk.
      * <p>
-     * This method writes the entire configuration object to the config.json file in the
-     * plugin's data folder. The configuration is serialized to JSON format using the
-     * JSONObject's toJSONString() method.
+     * Any pending scheduled save is cancelled, as this save already includes its changes.
+     * This method blocks until the configuration has been written, and should be called
+     * when the plugin is disabled so that no changes are lost.
+     *
+     * @see #save()
+     * @since 1.1.0
+     */
+    public static void flush() {
+        if (save_task != null) {
+            save_task.cancel();
+            save_task = null;
+        }
+        if (config != null) {
+            write(config.toJSONString(), ++save_sequence);
+        }
+    }
+
+    /**
+     * Writes a serialized configuration to the JSON configuration file on disk.
      * <p>
-     * This method is called automatically by {@link #update()} when configuration
-     * changes are detected, ensuring that all modifications are persisted immediately.
+     * The configuration is first written to a temporary file, which then atomically
+     * replaces the configuration file, so a crash during the write never leaves a partially
+     * written configuration behind. Writes are performed one at a time, and a write is
+     * skipped if a more recent configuration has already been written.
      * <p>
-     * If the save operation fails due to IO issues (such as insufficient disk space,
+     * If the write fails due to IO issues (such as insufficient disk space,
      * file permissions, or other filesystem errors), a severe error is logged and
      * the server is shut down to prevent data inconsistency.
      *
-     * @since 1.0.0
+     * @param json     The serialized configuration to write.
+     * @param sequence The sequence number of the save the configuration was serialized for.
+     * @since 1.1.0
      */
-    private static void save() {
-        try {
-            Files.writeString(config_file_path, config.toJSONString());
-        } catch (IOException e) {
-            Utils.logSevereErrorAndShutdown(String.format("Couldn't save config: %1$s", e.getMessage()));
+    private static void write(String json, long sequence) {
+        synchronized (write_lock) {
+            if (sequence <= written_sequence) {
+                return;
+            }
+
+            try {
+                Files.writeString(temp_config_file_path, json);
+                Files.move(temp_config_file_path, config_file_path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                written_sequence = sequence;
+            } catch (IOException e) {
+                String msg = String.format("Couldn't save config: %1$s", e.getMessage());
+                if (Bukkit.isPrimaryThread()) {
+                    Utils.logSevereErrorAndShutdown(msg);
+                } else {
+                    Bukkit.getScheduler().runTask(BackpacksPlus.getPlugin(), () -> Utils.logSevereErrorAndShutdown(msg));
+                }
+            }
         }
     }
 
@@ -379,6 +509,9 @@ public class Config {
      * <p>
      * The returned items represent the resources a player must provide to upgrade
      * their backpack to the specified size tier.
+     * <p>
+     * The items are copied from the decoded costs cached when the configuration was
+     * loaded, so modifying them doesn't affect the configured cost.
      *
      * @param size The backpack size to get the expansion cost for.
      * @return Array of ItemStacks representing the items and quantities needed for expansion.
@@ -389,7 +522,28 @@ public class Config {
     @Nonnull
     public static ItemStack[] getBackpackSizeExpansionCost(BackpackSize size) {
         if (size != null) {
-            return ItemStackCodec.decode((String) config.get(String.format("backpack.expansion_cost.%1$s", size.name())));
+            return Arrays.stream(expansion_costs.get(size)).map(item -> item != null ? item.clone() : null).toArray(ItemStack[]::new);
+        } else {
+            throw new IllegalArgumentException("Size cannot be null");
+        }
+    }
+
+    /**
+     * Retrieves the lore lines describing the item cost required to expand a backpack to that specific size.
+     * <p>
+     * The lines are built once whenever the expansion costs change, with one line per
+     * required item in the format "&amp;8 - &amp;a[Item Name] &amp;8x[Quantity]".
+     *
+     * @param size The backpack size to get the expansion cost lore for.
+     * @return Unmodifiable list of colored strings representing the expansion cost.
+     * @throws IllegalArgumentException If the provided size is null.
+     * @see #getBackpackSizeExpansionCost(BackpackSize)
+     * @since 1.1.0
+     */
+    @Nonnull
+    public static List<String> getBackpackSizeExpansionCostLore(BackpackSize size) {
+        if (size != null) {
+            return expansion_cost_lores.get(size);
         } else {
             throw new IllegalArgumentException("Size cannot be null");
         }
@@ -409,6 +563,10 @@ public class Config {
         if (size != null && value != null) {
             config.put(String.format("backpack.expansion_cost.%1$s", size.name()), ItemStackCodec.encode(value));
             save();
+
+            Map<BackpackSize, ItemStack[]> costs = new EnumMap<>(expansion_costs);
+            costs.put(size, Arrays.stream(value).map(item -> item != null ? item.clone() : null).toArray(ItemStack[]::new));
+            cacheExpansionCosts(costs);
         } else {
             throw new IllegalArgumentException("Size and Value cannot be null");
         }
@@ -716,4 +874,97 @@ public class Config {
             throw new IllegalArgumentException("Value cannot be null");
         }
     }
+
+    /**
+     * Retrieves the size in bytes above which encoded backpack contents are compressed.
+     * Contents smaller than this are stored uncompressed, as they gain little from compression.
+     *
+     * @return The compression threshold in bytes, or a negative value if compression is disabled.
+     * @see #setContentsCompressionThreshold(Integer)
+     * @see ItemStackCodec#setCompressionThreshold(int)
+     * @since 1.1.0
+     */
+    public static int getContentsCompressionThreshold() {
+        return ((Number) config.get("backpack.storage.compression_threshold")).intValue();
+    }
+
+    /**
+     * Sets the size in bytes above which encoded backpack contents are compressed.
+     * The new threshold applies to contents encoded from now on.
+     *
+     * @param value The compression threshold in bytes, or a negative value to disable compression.
+     * @throws IllegalArgumentException If the provided value is null.
+     * @see #getContentsCompressionThreshold()
+     * @since 1.1.0
+     */
+    public static void setContentsCompressionThreshold(Integer value) {
+        if (value != null) {
+            config.put("backpack.storage.compression_threshold", value);
+            save();
+            ItemStackCodec.setCompressionThreshold(value);
+        } else {
+            throw new IllegalArgumentException("Value cannot be null");
+        }
+    }
+
+    /**
+     * Retrieves where the contents of backpacks are stored.
+     * If the configured storage mode is invalid, returns ITEM.
+     *
+     * @return The StorageMode enum value for the configured storage mode.
+     * @see #setStorageMode(StorageMode)
+     * @since 1.1.0
+     */
+    @Nonnull
+    public static StorageMode getStorageMode() {
+        return StorageMode.getByName((String) config.get("backpack.storage.mode"));
+    }
+
+    /**
+     * Sets where the contents of backpacks are stored.
+     * Backpacks are moved to the new storage mode the next time their contents are saved.
+     *
+     * @param mode The StorageMode enum value to set.
+     * @throws IllegalArgumentException If the provided mode is null.
+     * @see #getStorageMode()
+     * @since 1.1.0
+     */
+    public static void setStorageMode(StorageMode mode) {
+        if (mode != null) {
+            config.put("backpack.storage.mode", mode.name());
+            save();
+        } else {
+            throw new IllegalArgumentException("Mode cannot be null");
+        }
+    }
+
+    /**
+     * Retrieves the number of days after which backpacks that weren't opened are moved to the cold tier.
+     * Cold backpacks have their contents compressed as much as possible, and are rehydrated the next time they are opened.
+     *
+     * @return The number of days, or a negative value if backpacks are never moved to the cold tier.
+     * @see #setColdTierAfterDays(Integer)
+     * @see ItemStackCodec#toColdBytes(byte[])
+     * @since 1.1.0
+     */
+    public static int getColdTierAfterDays() {
+        return ((Number) config.get("backpack.storage.cold_after_days")).intValue();
+    }
+
+    /**
+     * Sets the number of days after which backpacks that weren't opened are moved to the cold tier.
+     *
+     * @param value The number of days, or a negative value to never move backpacks to the cold tier.
+     * @throws IllegalArgumentException If the provided value is null.
+     * @see #getColdTierAfterDays()
+     * @since 1.1.0
+     */
+    public static void setColdTierAfterDays(Integer value) {
+        if (value != null) {
+            config.put("backpack.storage.cold_after_days", value);
+            save();
+        } else {
+            throw new IllegalArgumentException("Value cannot be null");
+        }
+    }
 }
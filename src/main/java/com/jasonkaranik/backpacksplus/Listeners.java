@@ -5,10 +5,20 @@ import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.block.Action;
+import org.bukkit.event.entity.EntityPickupItemEvent;
+import org.bukkit.event.entity.PlayerDeathEvent;
+import org.bukkit.event.inventory.InventoryAction;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryDragEvent;
 import org.bukkit.event.inventory.PrepareAnvilEvent;
 import org.bukkit.event.inventory.PrepareItemCraftEvent;
+import org.bukkit.event.player.PlayerDropItemEvent;
 import org.bukkit.event.player.PlayerInteractEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.player.PlayerSwapHandItemsEvent;
 import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.PlayerInventory;
 
 public class Listeners implements Listener {
     @EventHandler(priority = EventPriority.HIGHEST)
@@ -22,9 +32,9 @@ public class Listeners implements Listener {
                 if (!BackpacksPlus.isBackpackItem(player.getInventory().getItemInOffHand())) {
                     // LEFT_CLICK_AIR is called when dropping items for some reason, so that's why it's not being used.
                     if ((action == Action.RIGHT_CLICK_BLOCK || action == Action.RIGHT_CLICK_AIR) || (!player.isSneaking() && action == Action.LEFT_CLICK_BLOCK)) {
-                        new Backpack(player, item).openContainer(false);
+                        BackpackCache.get(player, item).openContainer(false);
                     } else if (player.isSneaking() && action == Action.LEFT_CLICK_BLOCK) {
-                        new Backpack(player, item).openCustomizer();
+                        BackpackCache.get(player, item).openCustomizer();
                     }
                 }
                 event.setCancelled(true);
@@ -45,4 +55,56 @@ public class Listeners implements Listener {
             event.setResult(null);
         }
     }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    private void onInventoryClick(InventoryClickEvent event) {
+        if (event.getWhoClicked() instanceof Player player) {
+            // Clicks in other inventories only change the player's inventory through these actions, so clicks that only move items within a backpack or container keep the index.
+            InventoryAction action = event.getAction();
+            if (event.getClickedInventory() instanceof PlayerInventory || action == InventoryAction.MOVE_TO_OTHER_INVENTORY || action == InventoryAction.HOTBAR_SWAP || action == InventoryAction.HOTBAR_MOVE_AND_READD || action == InventoryAction.COLLECT_TO_CURSOR) {
+                BackpackIndex.invalidate(player);
+            }
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    private void onInventoryDrag(InventoryDragEvent event) {
+        if (event.getWhoClicked() instanceof Player player) {
+            BackpackIndex.invalidate(player);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    private void onEntityPickupItem(EntityPickupItemEvent event) {
+        if (event.getEntity() instanceof Player player) {
+            BackpackIndex.invalidate(player);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    private void onPlayerDropItem(PlayerDropItemEvent event) {
+        BackpackIndex.invalidate(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    private void onPlayerSwapHandItems(PlayerSwapHandItemsEvent event) {
+        BackpackIndex.invalidate(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    private void onPlayerDeath(PlayerDeathEvent event) {
+        BackpackIndex.invalidate(event.getEntity());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    private void onPlayerJoin(PlayerJoinEvent event) {
+        ColdStorage.moveToColdTier(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    private void onPlayerQuit(PlayerQuitEvent event) {
+        // Evicting saves the cached backpacks through the index, so the index is only invalidated afterwards.
+        BackpackCache.evict(event.getPlayer());
+        BackpackIndex.invalidate(event.getPlayer());
+    }
 }
@@ -1,13 +1,10 @@
 package com.jasonkaranik.backpacksplus.enums;
 
 import com.jasonkaranik.backpacksplus.Config;
-import com.jasonkaranik.backpacksplus.utils.Utils;
-import org.bukkit.Material;
 import org.bukkit.inventory.ItemStack;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -15,7 +12,8 @@ import java.util.List;
  * <p>
  * Each size determines the number of rows in the backpack's inventory, with each row
  * containing 9 slots. Sizes range from SMALL (1 row) to JUMBO (5 rows), allowing
- * for different storage capacities.
+ * for different storage capacities. Sizes beyond JUMBO span multiple pages of 5 rows,
+ * which players switch between in the backpack GUI.
  * <p>
  * Example usage:
  * <pre>
@@ -72,14 +70,35 @@ public enum BackpackSize {
      * Jumbo backpack with 5 rows of inventory space.
      * <p>
      * Total slots: 45
-     * Maximum size tier available.
+     * Largest single-page size tier.
      *
      * @since 1.0.0
      */
-    JUMBO("Jumbo", 5);
+    JUMBO("Jumbo", 5),
+
+    /**
+     * Colossal backpack with 2 pages of 5 rows of inventory space.
+     * <p>
+     * Total slots: 90
+     * Fifth upgrade tier.
+     *
+     * @since 1.1.0
+     */
+    COLOSSAL("Colossal", 5, 2),
+
+    /**
+     * Titanic backpack with 4 pages of 5 rows of inventory space.
+     * <p>
+     * Total slots: 180
+     * Maximum size tier available.
+     *
+     * @since 1.1.0
+     */
+    TITANIC("Titanic", 5, 4);
 
     private final String friendly_name;
     private final int inv_rows;
+    private final int pages;
 
     /**
      * Constructs a BackpackSize with the specified number of inventory rows and friendly name.
@@ -92,8 +111,21 @@ public enum BackpackSize {
      * @since 1.0.0
      */
     BackpackSize(String friendly_name, int inv_rows) {
+        this(friendly_name, inv_rows, 1);
+    }
+
+    /**
+     * Constructs a BackpackSize spanning multiple pages with the specified number of inventory rows each.
+     *
+     * @param friendly_name The friendly name of the enum.
+     * @param inv_rows      The number of inventory rows of each page (1-5).
+     * @param pages         The number of pages.
+     * @since 1.1.0
+     */
+    BackpackSize(String friendly_name, int inv_rows, int pages) {
         this.friendly_name = friendly_name;
         this.inv_rows = inv_rows;
+        this.pages = pages;
     }
 
     /**
@@ -207,22 +239,17 @@ public enum BackpackSize {
      * - Item names are displayed in green (&amp;a)
      * - Quantities and decorative elements are displayed in dark gray (&amp;8)
      * - Empty or air items are excluded from the list
+     * <p>
+     * The lines are prebuilt by the configuration whenever the expansion cost changes,
+     * so the returned list is unmodifiable.
      *
      * @return List of colored strings representing the upgrade requirements.
-     * @see Config#getBackpackSizeExpansionCost(BackpackSize)
-     * @see Utils#colorify(String)
+     * @see Config#getBackpackSizeExpansionCostLore(BackpackSize)
      * @since 1.0.0
      */
     @Nonnull
     public List<String> getExpansionCostLore() {
-        List<String> list = new ArrayList<>();
-        ItemStack[] cost = Config.getBackpackSizeExpansionCost(this);
-        for (ItemStack item : cost) {
-            if (item != null && item.getType() != Material.AIR) {
-                list.add(Utils.colorify(String.format("&8 - &a%1$s &8x%2$s", Utils.getItemName(item), item.getAmount())));
-            }
-        }
-        return list;
+        return Config.getBackpackSizeExpansionCostLore(this);
     }
 
     /**
@@ -236,15 +263,35 @@ public enum BackpackSize {
     }
 
     /**
-     * Calculates the total number of inventory slots for this backpack size.
+     * Calculates the total number of inventory slots for this backpack size, across all pages.
      * <p>
      * The total slots are calculated by multiplying the number of rows by 9
-     * (the number of slots per row in Minecraft inventories).
+     * (the number of slots per row in Minecraft inventories) and the number of pages.
      *
      * @return The total number of inventory slots available.
      * @since 1.0.0
      */
     public int getInventorySlots() {
+        return getPageSlots() * this.pages;
+    }
+
+    /**
+     * Calculates the number of inventory slots in each page of this backpack size.
+     *
+     * @return The number of inventory slots shown at once.
+     * @since 1.1.0
+     */
+    public int getPageSlots() {
         return this.inv_rows * 9;
     }
+
+    /**
+     * Retrieves the number of pages of this backpack size.
+     *
+     * @return The number of pages, which is 1 for sizes up to JUMBO.
+     * @since 1.1.0
+     */
+    public int getPages() {
+        return this.pages;
+    }
 }
@@ -0,0 +1,128 @@
+package com.jasonkaranik.backpacksplus.enums;
+
+import com.jasonkaranik.backpacksplus.BackpacksPlus;
+import org.bukkit.NamespacedKey;
+
+/**
+ * Represents the persistent data keys used to store backpack data on backpack items.
+ * <p>
+ * Each backpack property is stored under its own typed key in the item meta's
+ * PersistentDataContainer, with the contents stored as a raw byte array. This avoids
+ * encoding the whole backpack as a single JSON string on every save.
+ * <p>
+ * Usage example:
+ * <pre>
+ * String id = container.get(DataKeys.ID.getKey(), PersistentDataType.STRING);
+ * </pre>
+ *
+ * @see org.bukkit.persistence.PersistentDataContainer
+ * @since 1.1.0
+ */
+public enum DataKeys {
+    /**
+     * Marks an item as a backpack item. Stored as a {@code BYTE}.
+     *
+     * @since 1.1.0
+     */
+    MARKER("backpack"),
+    /**
+     * The unique identifier of the backpack. Stored as a {@code STRING}.
+     *
+     * @since 1.1.0
+     */
+    ID("backpack_id"),
+    /**
+     * The display name of the backpack. Stored as a {@code STRING}.
+     *
+     * @since 1.1.0
+     */
+    DISPLAY_NAME("backpack_display_name"),
+    /**
+     * The name of the backpack's color. Stored as a {@code STRING}.
+     *
+     * @since 1.1.0
+     */
+    COLOR("backpack_color"),
+    /**
+     * The name of the backpack's size. Stored as a {@code STRING}.
+     *
+     * @since 1.1.0
+     */
+    SIZE("backpack_size"),
+    /**
+     * The encoded contents of the backpack. Stored as a {@code BYTE_ARRAY}.
+     *
+     * @since 1.1.0
+     */
+    CONTENTS("backpack_contents"),
+    /**
+     * The encoded contents of the backpack before they were cut down to fit its size. Stored as a {@code BYTE_ARRAY}.
+     *
+     * @since 1.1.0
+     */
+    UNCUT_CONTENTS("backpack_uncut_contents"),
+    /**
+     * The creation timestamp of the backpack. Stored as a {@code LONG}.
+     *
+     * @since 1.1.0
+     */
+    CREATED_AT("backpack_created_at"),
+    /**
+     * The timestamp of the last time the backpack was opened. Stored as a {@code LONG}.
+     *
+     * @since 1.1.0
+     */
+    LAST_OPENED_AT("backpack_last_opened_at"),
+    /**
+     * The number of times the backpack has been saved. Stored as a {@code LONG}.
+     * <p>
+     * Used to detect if a backpack item changed since it was last loaded.
+     *
+     * @since 1.1.0
+     */
+    REVISION("backpack_revision"),
+    /**
+     * Marks a backpack whose contents are in the cold tier. Stored as a {@code BYTE}.
+     * <p>
+     * Lets cold backpacks be told apart without loading or inspecting their contents.
+     *
+     * @since 1.1.0
+     */
+    COLD("backpack_cold"),
+    /**
+     * The legacy JSON data of the backpack. Stored as a {@code STRING}.
+     * <p>
+     * Backpacks using this key are migrated to the other keys the next time they are saved.
+     *
+     * @since 1.1.0
+     */
+    LEGACY_DATA("backpack_data");
+
+    private final String key;
+
+    private NamespacedKey namespacedKey;
+
+    /**
+     * Constructs a DataKeys enum with the specified key string.
+     *
+     * @param key The key string without the plugin namespace (e.g., "backpack_id")
+     */
+    DataKeys(String key) {
+        this.key = key;
+    }
+
+    /**
+     * Retrieves the NamespacedKey of this data key.
+     * <p>
+     * The key is created on first use, as it requires the plugin instance to be available.
+     *
+     * @return The NamespacedKey of this data key.
+     * @since 1.1.0
+     */
+    public NamespacedKey getKey() {
+        if (namespacedKey == null) {
+            namespacedKey = new NamespacedKey(BackpacksPlus.getPlugin(), this.key);
+        }
+        return namespacedKey;
+    }
+}
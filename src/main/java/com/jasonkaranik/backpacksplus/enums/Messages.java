@@ -144,10 +144,51 @@ public enum Messages {
      *
      * @since 1.0.0
      */
-    EXPAND_FAIL_MAX_SIZE("&cBackpack has reached maximum size.");
+    EXPAND_FAIL_MAX_SIZE("&cBackpack has reached maximum size."),
+    /**
+     * Shown as the first line of the storage report.
+     * The %1$s parameter represents the number of backpacks moved to the cold tier since the server started,
+     * %2$s the bytes this saved, and %3$s the number of backpacks rehydrated since.
+     *
+     * @since 1.1.0
+     */
+    STORAGE_REPORT_SESSION("&7Since startup, &e%1$s &7backpacks were moved to the cold tier, saving &e%2$s&7, and &e%3$s &7were rehydrated."),
+    /**
+     * Shown in the storage report.
+     * The %1$s parameter represents the number of backpack lookups served by the backpack cache since startup,
+     * and %2$s the number of lookups that had to load the backpack item.
+     *
+     * @since 1.1.0
+     */
+    STORAGE_REPORT_CACHE("&7Backpack cache: &e%1$s &7hits and &e%2$s &7misses."),
+    /**
+     * Shown in the storage report when writes to the backpack store are queued.
+     * The %1$s parameter represents the number of backpacks with queued changes, %2$s the highest number since startup,
+     * %3$s the number of changes that replaced an earlier queued change, %4$s the number of changes written to the store,
+     * and %5$s the number of times a full queue had to be written on the main thread.
+     *
+     * @since 1.1.0
+     */
+    STORAGE_REPORT_WRITES("&7Queued writes: &e%1$s &7pending (at most &e%2$s&7), &e%3$s &7coalesced, &e%4$s &7flushed and &e%5$s &7back-pressure stalls."),
+    /**
+     * Shown while the backpacks stored on the server are counted for the storage report.
+     *
+     * @since 1.1.0
+     */
+    STORAGE_REPORT_SCANNING("&7Counting backpacks stored on the server..."),
+    /**
+     * Shown once the backpacks stored on the server have been counted for the storage report.
+     * The %1$s and %2$s parameters represent the number and size of hot backpacks, %3$s and %4$s
+     * the number and size of cold backpacks, and %5$s the bytes the cold tier saves.
+     *
+     * @since 1.1.0
+     */
+    STORAGE_REPORT_STORE("&7Stored on the server: &e%1$s &7hot backpacks (&e%2$s&7) and &e%3$s &7cold backpacks (&e%4$s&7, saving &e%5$s&7).");
 
     private final String msg;
 
+    private String message;
+
     /**
      * Constructs a Messages enum with the specified message string.
      * <p>
@@ -166,17 +207,36 @@ public enum Messages {
         this.msg = msg;
     }
 
+    /**
+     * Converts the color codes of every message once, so that retrieving a message
+     * doesn't have to convert them again.
+     * <p>
+     * This is called when the plugin is enabled, and can be called again to rebuild the messages.
+     *
+     * @see #getMessage()
+     * @since 1.1.0
+     */
+    public static void load() {
+        for (Messages message : values()) {
+            message.message = Utils.colorify(message.msg);
+        }
+    }
+
     /**
      * Gets the color-coded message string.
      * <p>
      * Returns the message with all color codes converted from '&amp;' notation
      * to the internal Minecraft color format using the {@link Utils#colorify(String)} method.
+     * The conversion is done once by {@link #load()}, which is run on first use if needed.
      *
      * @return The processed message with converted color codes.
      * @see Utils#colorify(String)
      * @since 1.0.0
      */
     public String getMessage() {
-        return Utils.colorify(this.msg);
+        if (this.message == null) {
+            this.message = Utils.colorify(this.msg);
+        }
+        return this.message;
     }
 }
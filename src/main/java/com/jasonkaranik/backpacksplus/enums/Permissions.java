@@ -49,7 +49,14 @@ public enum Permissions {
      *
      * @since 1.0.0
      */
-    EXPAND_BACKPACK("expand_backpacks");
+    EXPAND_BACKPACK("expand_backpacks"),
+    /**
+     * Permission required to view the backpack storage report.
+     * Unlike the other permissions, this one is always required.
+     *
+     * @since 1.1.0
+     */
+    VIEW_STORAGE_REPORT("view_storage_report");
 
     private final String perm;
 
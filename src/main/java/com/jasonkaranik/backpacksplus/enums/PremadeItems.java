@@ -0,0 +1,156 @@
+package com.jasonkaranik.backpacksplus.enums;
+
+import com.jasonkaranik.backpacksplus.utils.Utils;
+import org.bukkit.Material;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+
+import javax.annotation.Nonnull;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Represents the premade items shared by the plugin's GUIs, such as borders and navigation icons.
+ * <p>
+ * Each item is built once by {@link #load()} and kept as a private template. The template
+ * is never handed out: it's either copied into an inventory slot, or cloned before being
+ * returned, so callers can't accidentally modify an item shared by every GUI.
+ * <p>
+ * Usage example:
+ * <pre>
+ * PremadeItems.CLOSE.setItem(inventory, 0);
+ * </pre>
+ *
+ * @see com.jasonkaranik.backpacksplus.utils.GUI
+ * @since 1.1.0
+ */
+public enum PremadeItems {
+    // NAVIGATION ITEMS
+
+    /**
+     * Navigates to the first backpack in the player's inventory.
+     *
+     * @since 1.1.0
+     */
+    NAVIGATION_BACKWARDS_II(() -> Utils.createSkullItemStack("816ea34a6a6ec5c051e6932f1c471b7012b298d38d179f1b487c413f51959cd4", "&aFirst Backpack", List.of(Utils.colorify("&7Go to the first backpack")))),
+    /**
+     * Navigates to the previous backpack in the player's inventory.
+     *
+     * @since 1.1.0
+     */
+    NAVIGATION_BACKWARDS_I(() -> Utils.createSkullItemStack("8652e2b936ca8026bd28651d7c9f2819d2e923697734d18dfdb13550f8fdad5f", "&aPrevious Backpack", List.of(Utils.colorify("&7Go to the previous backpack")))),
+    /**
+     * Navigates to the next backpack in the player's inventory.
+     *
+     * @since 1.1.0
+     */
+    NAVIGATION_FORWARDS_I(() -> Utils.createSkullItemStack("2a3b8f681daad8bf436cae8da3fe8131f62a162ab81af639c3e0644aa6abac2f", "&aNext Backpack", List.of(Utils.colorify("&7Go to the next backpack")))),
+    /**
+     * Navigates to the last backpack in the player's inventory.
+     *
+     * @since 1.1.0
+     */
+    NAVIGATION_FORWARDS_II(() -> Utils.createSkullItemStack("9c9ec71c1068ec6e03d2c9287f9da9193639f3a635e2fbd5d87c2fabe6499", "&aLast Backpack", List.of(Utils.colorify("&7Go to the last backpack")))),
+    /**
+     * Navigates to the previous page of a backpack spanning multiple pages.
+     *
+     * @since 1.1.0
+     */
+    NAVIGATION_PREVIOUS_PAGE(() -> Utils.createItemStack(Material.ARROW, "&aPrevious Page", List.of(Utils.colorify("&7Go to the previous page")))),
+    /**
+     * Navigates to the next page of a backpack spanning multiple pages.
+     *
+     * @since 1.1.0
+     */
+    NAVIGATION_NEXT_PAGE(() -> Utils.createItemStack(Material.ARROW, "&aNext Page", List.of(Utils.colorify("&7Go to the next page")))),
+    /**
+     * Closes the GUI.
+     *
+     * @since 1.1.0
+     */
+    CLOSE(() -> Utils.createItemStack(Material.BARRIER, "&cClose menu", List.of())),
+
+    // MISC
+
+    /**
+     * Fills the unused slots of a GUI.
+     *
+     * @since 1.1.0
+     */
+    BORDER(() -> Utils.createItemStack(Material.BLACK_STAINED_GLASS_PANE, "", List.of())),
+    /**
+     * Replaces the expand button of the customizer once a backpack can't be expanded any further.
+     *
+     * @since 1.1.0
+     */
+    BACKPACK_CUSTOMIZER_EXPAND_MAX_SIZE_REACHED(() -> Utils.createItemStack(Material.RED_STAINED_GLASS_PANE, "&cMax Size Reached", List.of("", Utils.colorify("&7Your backpack has reached"), Utils.colorify("&7the maximum size and"), Utils.colorify("&7cannot be expanded further"))));
+
+    private final Supplier<ItemStack> builder;
+
+    private ItemStack item;
+
+    /**
+     * Constructs a PremadeItems enum with the specified item builder.
+     *
+     * @param builder The function building the item.
+     */
+    PremadeItems(Supplier<ItemStack> builder) {
+        this.builder = builder;
+    }
+
+    /**
+     * Builds every premade item, replacing any previously built items.
+     * <p>
+     * All items are built before any of them is replaced, so a failure leaves the
+     * previously built items untouched. This is called when the plugin is enabled,
+     * and can be called again to rebuild the items.
+     *
+     * @since 1.1.0
+     */
+    public static void load() {
+        PremadeItems[] values = values();
+        ItemStack[] items = new ItemStack[values.length];
+        for (int i = 0; i < values.length; i++) {
+            items[i] = values[i].builder.get();
+        }
+        for (int i = 0; i < values.length; i++) {
+            values[i].item = items[i];
+        }
+    }
+
+    /**
+     * Retrieves a copy of this premade item.
+     *
+     * @return A copy of the item, which can be freely modified.
+     * @since 1.1.0
+     */
+    @Nonnull
+    public ItemStack getItem() {
+        return getTemplate().clone();
+    }
+
+    /**
+     * Places this premade item in an inventory slot.
+     * <p>
+     * The inventory stores its own copy of the item, so no clone is needed.
+     *
+     * @param inventory The inventory to place the item in.
+     * @param slot      The slot to place the item in.
+     * @throws IllegalArgumentException If the provided inventory is null.
+     * @since 1.1.0
+     */
+    public void setItem(Inventory inventory, int slot) {
+        if (inventory != null) {
+            inventory.setItem(slot, getTemplate());
+        } else {
+            throw new IllegalArgumentException("Inventory cannot be null");
+        }
+    }
+
+    private ItemStack getTemplate() {
+        if (item == null) {
+            item = builder.get();
+        }
+        return item;
+    }
+}
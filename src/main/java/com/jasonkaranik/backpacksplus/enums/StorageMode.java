@@ -0,0 +1,63 @@
+package com.jasonkaranik.backpacksplus.enums;
+
+import com.jasonkaranik.backpacksplus.Config;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Represents where the contents of backpacks are stored.
+ * <p>
+ * Backpacks are moved to the configured storage mode the next time their contents are
+ * saved, so the mode can be changed at any time without losing any contents.
+ *
+ * @see Config#getStorageMode()
+ * @see com.jasonkaranik.backpacksplus.storage.BackpackStore
+ * @since 1.1.0
+ */
+public enum StorageMode {
+    /**
+     * Contents are stored inside the backpack item itself.
+     *
+     * @since 1.1.0
+     */
+    ITEM,
+    /**
+     * Contents are stored on the server, in a file per backpack, and the item only carries the backpack's ID.
+     *
+     * @see com.jasonkaranik.backpacksplus.storage.FileBackpackStore
+     * @since 1.1.0
+     */
+    FILE,
+    /**
+     * Contents are stored on the server, appended to a few large segment files, and the item only carries the backpack's ID.
+     * <p>
+     * Suited to servers with a very large number of backpacks, where a file per backpack gets heavy.
+     *
+     * @see com.jasonkaranik.backpacksplus.storage.SegmentBackpackStore
+     * @since 1.1.0
+     */
+    SEGMENT;
+
+    /**
+     * Retrieves a storage mode by its name.
+     * <p>
+     * The search is case-insensitive. If the requested mode is not found, returns ITEM.
+     *
+     * @param key The name of the storage mode to retrieve.
+     * @return The matching StorageMode enum value, or ITEM if not found.
+     * @throws IllegalArgumentException If the provided key is null.
+     * @since 1.1.0
+     */
+    @Nonnull
+    public static StorageMode getByName(String key) {
+        if (key != null) {
+            try {
+                return StorageMode.valueOf(key.toUpperCase());
+            } catch (IllegalArgumentException ignored) {
+                return ITEM;
+            }
+        } else {
+            throw new IllegalArgumentException("Key cannot be null");
+        }
+    }
+}
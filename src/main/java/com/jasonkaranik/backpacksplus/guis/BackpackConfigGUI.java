@@ -5,6 +5,7 @@ import com.jasonkaranik.backpacksplus.Config;
 import com.jasonkaranik.backpacksplus.enums.BackpackColor;
 import com.jasonkaranik.backpacksplus.enums.BackpackSize;
 import com.jasonkaranik.backpacksplus.enums.Messages;
+import com.jasonkaranik.backpacksplus.enums.PremadeItems;
 import com.jasonkaranik.backpacksplus.utils.GUI;
 import com.jasonkaranik.backpacksplus.utils.Utils;
 import org.bukkit.Material;
@@ -21,21 +22,30 @@ import java.util.List;
 import java.util.stream.IntStream;
 
 public class BackpackConfigGUI extends GUI {
+    // Every size but the first one has an expansion cost, laid out in rows of 6 with the middle column left empty.
+    private static final int EXPANSION_COSTS = BackpackSize.values().length - 1;
+
+    private static final int EXPANSION_COST_ROWS = Math.max(1, (EXPANSION_COSTS + 5) / 6);
+
+    private static final int SIZE = 9 * (3 + EXPANSION_COST_ROWS);
+
+    private static final int[] EXPANSION_COST_SLOTS = IntStream.range(18, 18 + 9 * EXPANSION_COST_ROWS).filter(i -> i % 9 != 0 && i % 9 != 4 && i % 9 != 8).limit(EXPANSION_COSTS).toArray();
+
+    private static final int[] BORDER_SLOTS = IntStream.range(0, SIZE).filter(i -> (i >= 1 && i <= 9) || (i >= 17 && (i % 9 == 0 || i % 9 == 8)) || i >= SIZE - 9).toArray();
 
     public BackpackConfigGUI(Player player) {
-        super(player, "Backpack Config", 9 * 4);
+        super(player, "Backpack Config", SIZE);
     }
 
     @Override
-    public void onUpdate() {
-        for (int i = 0; i < 36; i++) {
-            if ((i >= 1 && i <= 9) || (i >= 17 && i <= 18) || i >= 26) {
-                setClickableItem(i, PREMADE_ITEMS.BORDER, event -> true);
-            }
-        }
+    public void onLayout() {
+        setClickableItems(BORDER_SLOTS, PremadeItems.BORDER, CANCEL);
 
-        setClickableItem(0, PREMADE_ITEMS.CLOSE, event -> close());
+        setClickableItem(0, PremadeItems.CLOSE, event -> close());
+    }
 
+    @Override
+    public void onUpdate() {
         BackpackColor color = Config.getDefaultBackpackColor();
         BackpackSize size = Config.getDefaultBackpackSize();
 
@@ -106,10 +116,11 @@ public class BackpackConfigGUI extends GUI {
             return true;
         });
 
-        setClickableItem(19, createExpansionCostItem(BackpackSize.MEDIUM), e -> setHotbarItemsAsExpansionCost(BackpackSize.MEDIUM));
-        setClickableItem(21, createExpansionCostItem(BackpackSize.LARGE), e -> setHotbarItemsAsExpansionCost(BackpackSize.LARGE));
-        setClickableItem(23, createExpansionCostItem(BackpackSize.GREATER), e -> setHotbarItemsAsExpansionCost(BackpackSize.GREATER));
-        setClickableItem(25, createExpansionCostItem(BackpackSize.JUMBO), e -> setHotbarItemsAsExpansionCost(BackpackSize.JUMBO));
+        BackpackSize[] sizes = BackpackSize.values();
+        for (int i = 1; i < sizes.length; i++) {
+            BackpackSize expansion_size = sizes[i];
+            setClickableItem(EXPANSION_COST_SLOTS[i - 1], createExpansionCostItem(expansion_size), e -> setHotbarItemsAsExpansionCost(expansion_size));
+        }
     }
 
     private ItemStack createExpansionCostItem(BackpackSize size) {
@@ -5,6 +5,7 @@ import com.jasonkaranik.backpacksplus.BackpacksPlus;
 import com.jasonkaranik.backpacksplus.Config;
 import com.jasonkaranik.backpacksplus.enums.BackpackColor;
 import com.jasonkaranik.backpacksplus.enums.Messages;
+import com.jasonkaranik.backpacksplus.enums.PremadeItems;
 import com.jasonkaranik.backpacksplus.enums.Permissions;
 import com.jasonkaranik.backpacksplus.utils.GUI;
 import com.jasonkaranik.backpacksplus.utils.Utils;
@@ -17,8 +18,11 @@ import org.bukkit.inventory.meta.ItemMeta;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.IntStream;
 
 public class BackpackCustomizerGUI extends GUI {
+    private static final int[] BORDER_SLOTS = IntStream.range(0, 27).filter(i -> (i >= 1 && i < 10) || i >= 17).toArray();
+
     private final Backpack backpack;
 
     public BackpackCustomizerGUI(Player player, Backpack backpack) {
@@ -28,15 +32,14 @@ public class BackpackCustomizerGUI extends GUI {
     }
 
     @Override
-    public void onUpdate() {
-        for (int i = 0; i < 27; i++) {
-            if ((i >= 1 && i < 10) || i >= 17) {
-                setClickableItem(i, PREMADE_ITEMS.BORDER, event -> true);
-            }
-        }
+    public void onLayout() {
+        setClickableItems(BORDER_SLOTS, PremadeItems.BORDER, CANCEL);
 
-        setClickableItem(0, PREMADE_ITEMS.CLOSE, event -> close());
+        setClickableItem(0, PremadeItems.CLOSE, event -> close());
+    }
 
+    @Override
+    public void onUpdate() {
         BackpackColor color = backpack.getColor();
         ItemStack backpack_dye_placeholder_item = Utils.createItemStack(color.getDyeItem(), "&aDye Backpack", List.of("", Utils.colorify("&7Place a dye item here"), Utils.colorify("&7to change the backpack color"), "", Utils.colorify(String.format("&7Current color: %1$s", color.getHexColor() + color.getFriendlyName()))));
         ItemStack backpack_rename_placeholder_item = Utils.createItemStack(Material.NAME_TAG, "&aRename Backpack", List.of("", Utils.colorify("&7Place a name tag here"), Utils.colorify("&7to rename the backpack"), "", Utils.colorify(String.format("&7Current name: %1$s", backpack.getDisplayName()))));
@@ -46,7 +49,7 @@ public class BackpackCustomizerGUI extends GUI {
                 addAll(backpack.createNextSizeExpansionCostLore());
             }});
         } else {
-            backpack_expand_placeholder_item = PREMADE_ITEMS.BACKPACK_CUSTOMIZER_EXPAND_MAX_SIZE_REACHED;
+            backpack_expand_placeholder_item = PremadeItems.BACKPACK_CUSTOMIZER_EXPAND_MAX_SIZE_REACHED.getItem();
         }
 
         setClickableItem(11, backpack_dye_placeholder_item, event -> {
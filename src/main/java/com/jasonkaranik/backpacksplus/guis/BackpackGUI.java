@@ -1,8 +1,11 @@
 package com.jasonkaranik.backpacksplus.guis;
 
 import com.jasonkaranik.backpacksplus.Backpack;
+import com.jasonkaranik.backpacksplus.BackpackCache;
+import com.jasonkaranik.backpacksplus.BackpackIndex;
 import com.jasonkaranik.backpacksplus.BackpacksPlus;
 import com.jasonkaranik.backpacksplus.enums.Messages;
+import com.jasonkaranik.backpacksplus.enums.PremadeItems;
 import com.jasonkaranik.backpacksplus.utils.GUI;
 import com.jasonkaranik.backpacksplus.utils.Utils;
 import org.bukkit.Sound;
@@ -11,64 +14,103 @@ import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.inventory.ItemStack;
 
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.OptionalInt;
+import java.util.function.Function;
 
 public class BackpackGUI extends GUI {
+    private static final int[] BORDER_SLOTS = {1, 2, 3, 4};
+
+    private static final int[] PAGED_BORDER_SLOTS = {1, 2};
+
     private final Backpack backpack;
 
+    private ItemStack[] opened_contents;
+
+    private boolean modified = false;
+
+    private boolean unsaved = false;
+
+    private int page = 0;
+
     public BackpackGUI(Player player, Backpack backpack) {
-        super(player, Utils.colorify(backpack.getDisplayName()), backpack.getSize().getInventorySlots() + 9);
+        super(player, Utils.colorify(backpack.getDisplayName()), backpack.getSize().getPageSlots() + 9);
 
         this.backpack = backpack;
     }
 
     @Override
-    public void onUpdate() {
-        for (int i = 1; i < 5; i++) {
-            setClickableItem(i, PREMADE_ITEMS.BORDER, event -> true);
+    public void onLayout() {
+        if (backpack.getSize().getPages() > 1) {
+            setClickableItems(PAGED_BORDER_SLOTS, PremadeItems.BORDER, CANCEL);
+
+            setClickableItem(3, PremadeItems.NAVIGATION_PREVIOUS_PAGE, event -> goToPage(page - 1));
+            setClickableItem(4, PremadeItems.NAVIGATION_NEXT_PAGE, event -> goToPage(page + 1));
+        } else {
+            setClickableItems(BORDER_SLOTS, PremadeItems.BORDER, CANCEL);
         }
 
-        setClickableItem(0, PREMADE_ITEMS.CLOSE, event -> close());
+        setClickableItem(0, PremadeItems.CLOSE, event -> close());
 
-        setClickableItem(5, PREMADE_ITEMS.NAVIGATION_BACKWARDS_II, event -> goToBackpack(getNextBackpack(-1)));
-        setClickableItem(6, PREMADE_ITEMS.NAVIGATION_BACKWARDS_I, event -> goToBackpack(getPreviousBackpack(backpack.getItemSlotNumberInInventory())));
-        setClickableItem(7, PREMADE_ITEMS.NAVIGATION_FORWARDS_I, event -> goToBackpack(getNextBackpack(backpack.getItemSlotNumberInInventory())));
-        setClickableItem(8, PREMADE_ITEMS.NAVIGATION_FORWARDS_II, event -> goToBackpack(getPreviousBackpack(player.getInventory().getSize())));
+        setClickableItem(5, PremadeItems.NAVIGATION_BACKWARDS_II, event -> goToBackpack(getNextBackpack(-1)));
+        setClickableItem(6, PremadeItems.NAVIGATION_BACKWARDS_I, event -> goToBackpack(getPreviousBackpack(backpack.getItemSlotNumberInInventory())));
+        setClickableItem(7, PremadeItems.NAVIGATION_FORWARDS_I, event -> goToBackpack(getNextBackpack(backpack.getItemSlotNumberInInventory())));
+        setClickableItem(8, PremadeItems.NAVIGATION_FORWARDS_II, event -> goToBackpack(getPreviousBackpack(player.getInventory().getSize())));
+    }
 
-        ItemStack[] contents = backpack.getContents();
+    @Override
+    public void onUpdate() {
+        // Only the shown page is decoded, so large backpacks don't decode all of their pages on every open.
+        ItemStack[] contents = backpack.getPage(page);
         for (int i = 0; i < contents.length; i++) {
-            try {
-                inv.setItem(i + 9, contents[i]);
-            } catch (Exception ignored) {
-            }
+            inv.setItem(i + 9, contents[i]);
         }
     }
 
-    private ItemStack getNextBackpack(int startIndex) {
-        ItemStack[] contents = player.getInventory().getContents();
-        for (int i = startIndex + 1; i < contents.length; i++) {
-            if (BackpacksPlus.isBackpackItem(contents[i])) {
-                return contents[i];
-            }
+    private boolean goToPage(int newPage) {
+        if (newPage >= 0 && newPage < backpack.getSize().getPages() && newPage != page) {
+            storeChanges();
+            page = newPage;
+            onUpdate();
+            player.playSound(player.getLocation(), Sound.ITEM_BOOK_PAGE_TURN, 1.0F, 1.0F);
         }
-        return null;
+        return true;
+    }
+
+    private ItemStack getNextBackpack(int startIndex) {
+        return getIndexedBackpack(slots -> Arrays.stream(slots).filter(slot -> slot > startIndex).findFirst());
     }
 
     private ItemStack getPreviousBackpack(int startIndex) {
-        ItemStack[] contents = player.getInventory().getContents();
-        for (int i = startIndex - 1; i >= 0; i--) {
-            if (BackpacksPlus.isBackpackItem(contents[i])) {
-                return contents[i];
+        return getIndexedBackpack(slots -> Arrays.stream(slots).filter(slot -> slot < startIndex).reduce((first, second) -> second));
+    }
+
+    private ItemStack getIndexedBackpack(Function<int[], OptionalInt> selector) {
+        OptionalInt slot = selector.apply(BackpackIndex.getSlots(player));
+        if (slot.isPresent()) {
+            ItemStack item = player.getInventory().getItem(slot.getAsInt());
+            if (BackpacksPlus.isBackpackItem(item)) {
+                return item;
+            }
+
+            // The index missed an inventory change, so the slot is selected again from a rebuilt index.
+            BackpackIndex.invalidate(player);
+            slot = selector.apply(BackpackIndex.getSlots(player));
+            if (slot.isPresent()) {
+                item = player.getInventory().getItem(slot.getAsInt());
+                if (BackpacksPlus.isBackpackItem(item)) {
+                    return item;
+                }
             }
         }
         return null;
     }
 
     private boolean goToBackpack(ItemStack it) {
-        if (it != null) {
-            Backpack new_backpack = new Backpack(player, it);
-            if (!new_backpack.getID().equals(backpack.getID())) {
-                new_backpack.openContainer(false);
-            }
+        if (it != null && !backpack.getID().equals(BackpacksPlus.getBackpackID(it))) {
+            BackpackCache.get(player, it).openContainer(false);
         }
         return true;
     }
@@ -86,12 +128,42 @@ public class BackpackGUI extends GUI {
             close();
             return true;
         }
+        if (!modified) {
+            // Taken before the first click on the shown page is applied, so pages that are only looked at aren't copied. The items
+            // are cloned, as the inventory's items are live mirrors that change along with the inventory.
+            opened_contents = Arrays.stream(Arrays.copyOfRange(inv.getContents(), 9, inv.getSize())).map(item -> item != null ? item.clone() : null).toArray(ItemStack[]::new);
+            modified = true;
+        }
         return false;
     }
 
     @Override
     public void onClose() {
-        backpack.setContents(Arrays.copyOfRange(inv.getContents(), 9, inv.getSize()));
-        backpack.save();
+        storeChanges();
+        if (unsaved) {
+            backpack.save();
+        }
+    }
+
+    /**
+     * Stores the changes made to the shown page in the backpack, without saving it.
+     */
+    private void storeChanges() {
+        // Most backpacks are only looked into, so only the slots that a click could have changed, and that actually differ, are encoded.
+        if (modified) {
+            ItemStack[] contents = Arrays.copyOfRange(inv.getContents(), 9, inv.getSize());
+            int offset = page * backpack.getSize().getPageSlots();
+            Map<Integer, ItemStack> changes = new HashMap<>();
+            for (int i = 0; i < contents.length; i++) {
+                if (!Objects.equals(contents[i], opened_contents[i])) {
+                    changes.put(offset + i, contents[i]);
+                }
+            }
+            if (!changes.isEmpty()) {
+                backpack.setItems(changes);
+                unsaved = true;
+            }
+            modified = false;
+        }
     }
 }
@@ -0,0 +1,120 @@
+package com.jasonkaranik.backpacksplus.storage;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * Represents a server-side store holding the encoded contents of backpacks, keyed by backpack ID.
+ * <p>
+ * When backpack contents are kept in a store, the backpack item itself only carries the
+ * backpack's ID and properties, and a summary of its contents in its lore. This keeps
+ * player data files and item packets small no matter how much the backpack holds.
+ * <p>
+ * Implementations may be called from any thread, including the background thread
+ * flushing a {@link WriteBehindBackpackStore}.
+ *
+ * @see com.jasonkaranik.backpacksplus.enums.StorageMode
+ * @since 1.1.0
+ */
+public interface BackpackStore {
+    /**
+     * Loads the encoded contents of a backpack.
+     *
+     * @param id The ID of the backpack.
+     * @return The encoded contents, or null if the store holds no contents for the backpack.
+     * @throws IllegalArgumentException If the provided ID is null or invalid.
+     * @throws IllegalStateException    If the contents couldn't be read.
+     * @since 1.1.0
+     */
+    @Nullable
+    byte[] load(String id);
+
+    /**
+     * Loads the first bytes of the encoded contents of a backpack, such as the header of their format, without reading the rest.
+     * <p>
+     * The default implementation loads the whole contents and copies their first bytes.
+     *
+     * @param id     The ID of the backpack.
+     * @param length The number of bytes to load.
+     * @return The first bytes of the encoded contents, fewer if the contents are shorter, or null if the store holds no contents for the backpack.
+     * @throws IllegalArgumentException If the provided ID is null or invalid.
+     * @throws IllegalStateException    If the contents couldn't be read.
+     * @see #getLength(String)
+     * @since 1.1.0
+     */
+    @Nullable
+    default byte[] loadHeader(String id, int length) {
+        byte[] contents = load(id);
+        return contents != null && contents.length > length ? Arrays.copyOf(contents, length) : contents;
+    }
+
+    /**
+     * Retrieves the length of the encoded contents of a backpack, without reading them.
+     * <p>
+     * The default implementation loads the whole contents.
+     *
+     * @param id The ID of the backpack.
+     * @return The length of the encoded contents in bytes, or -1 if the store holds no contents for the backpack.
+     * @throws IllegalArgumentException If the provided ID is null or invalid.
+     * @throws IllegalStateException    If the length couldn't be read.
+     * @see #loadHeader(String, int)
+     * @since 1.1.0
+     */
+    default int getLength(String id) {
+        byte[] contents = load(id);
+        return contents != null ? contents.length : -1;
+    }
+
+    /**
+     * Saves the encoded contents of a backpack, replacing any previously saved contents.
+     *
+     * @param id       The ID of the backpack.
+     * @param contents The encoded contents.
+     * @throws IllegalArgumentException If the provided ID or contents are null, or the ID is invalid.
+     * @throws IllegalStateException    If the contents couldn't be written.
+     * @since 1.1.0
+     */
+    void save(String id, byte[] contents);
+
+    /**
+     * Deletes the contents of a backpack, if the store holds any.
+     *
+     * @param id The ID of the backpack.
+     * @throws IllegalArgumentException If the provided ID is null or invalid.
+     * @throws IllegalStateException    If the contents couldn't be deleted.
+     * @since 1.1.0
+     */
+    void delete(String id);
+
+    /**
+     * Retrieves the IDs of all backpacks the store holds contents for.
+     *
+     * @return The IDs of the stored backpacks.
+     * @throws IllegalStateException If the IDs couldn't be read.
+     * @since 1.1.0
+     */
+    @Nonnull
+    Set<String> getIDs();
+
+    /**
+     * Forces all changes saved or deleted so far to be written to durable storage.
+     * <p>
+     * Changes are only guaranteed to survive a power loss once this method returns. It's
+     * called before a change is dropped from a journal that could otherwise replay it.
+     *
+     * @throws IllegalStateException If the changes couldn't be synced.
+     * @since 1.1.0
+     */
+    default void sync() {
+    }
+
+    /**
+     * Releases any resources held by the store. Called when the plugin is disabled.
+     *
+     * @since 1.1.0
+     */
+    default void close() {
+    }
+}
@@ -0,0 +1,180 @@
+package com.jasonkaranik.backpacksplus.storage;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * A backpack store keeping the contents of each backpack in its own file.
+ * <p>
+ * Each backpack's encoded contents are stored as-is in a file named after its ID.
+ * Files are written to a temporary file first, which is synced to disk and then atomically
+ * replaces the previous file, so a crash during a write never leaves partially written
+ * contents behind. Syncing the store syncs the directory, which makes the replacements
+ * and deletions durable.
+ *
+ * @see BackpackStore
+ * @since 1.1.0
+ */
+public class FileBackpackStore implements BackpackStore {
+    private final Path directory;
+
+    /**
+     * Creates a store keeping backpack contents in a specific directory.
+     * <p>
+     * The directory is created when the first backpack is saved.
+     *
+     * @param directory The directory holding the contents files.
+     * @throws IllegalArgumentException If the provided directory is null.
+     */
+    public FileBackpackStore(Path directory) {
+        if (directory != null) {
+            this.directory = directory;
+        } else {
+            throw new IllegalArgumentException("Directory cannot be null");
+        }
+    }
+
+    @Nullable
+    @Override
+    public byte[] load(String id) {
+        Path path = getPath(id);
+        try {
+            return Files.exists(path) ? Files.readAllBytes(path) : null;
+        } catch (IOException e) {
+            throw new IllegalStateException(String.format("Couldn't load contents of backpack %1$s: %2$s", id, e.getMessage()), e);
+        }
+    }
+
+    @Nullable
+    @Override
+    public byte[] loadHeader(String id, int length) {
+        Path path = getPath(id);
+        try {
+            if (Files.exists(path)) {
+                try (InputStream input = Files.newInputStream(path)) {
+                    return input.readNBytes(length);
+                }
+            }
+            return null;
+        } catch (IOException e) {
+            throw new IllegalStateException(String.format("Couldn't load contents of backpack %1$s: %2$s", id, e.getMessage()), e);
+        }
+    }
+
+    @Override
+    public int getLength(String id) {
+        Path path = getPath(id);
+        try {
+            return Files.exists(path) ? Math.toIntExact(Files.size(path)) : -1;
+        } catch (IOException e) {
+            throw new IllegalStateException(String.format("Couldn't read length of backpack %1$s: %2$s", id, e.getMessage()), e);
+        }
+    }
+
+    @Override
+    public void save(String id, byte[] contents) {
+        if (contents != null) {
+            Path path = getPath(id);
+            Path temp_path = path.resolveSibling(path.getFileName() + ".tmp");
+            try {
+                Files.createDirectories(directory);
+                try (FileChannel channel = FileChannel.open(temp_path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                    ByteBuffer buffer = ByteBuffer.wrap(contents);
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                    channel.force(true);
+                }
+                Files.move(temp_path, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                throw new IllegalStateException(String.format("Couldn't save contents of backpack %1$s: %2$s", id, e.getMessage()), e);
+            }
+        } else {
+            throw new IllegalArgumentException("Contents cannot be null");
+        }
+    }
+
+    @Override
+    public void delete(String id) {
+        try {
+            Files.deleteIfExists(getPath(id));
+        } catch (IOException e) {
+            throw new IllegalStateException(String.format("Couldn't delete contents of backpack %1$s: %2$s", id, e.getMessage()), e);
+        }
+    }
+
+    @Override
+    public void sync() {
+        if (Files.isDirectory(directory)) {
+            try {
+                syncDirectory(directory);
+            } catch (IOException e) {
+                throw new IllegalStateException(String.format("Couldn't sync stored backpacks: %1$s", e.getMessage()), e);
+            }
+        }
+    }
+
+    @Nonnull
+    @Override
+    public Set<String> getIDs() {
+        Set<String> ids = new HashSet<>();
+        if (Files.isDirectory(directory)) {
+            try (Stream<Path> paths = Files.list(directory)) {
+                paths.map(path -> path.getFileName().toString()).filter(name -> name.endsWith(".bin")).forEach(name -> ids.add(name.substring(0, name.length() - ".bin".length())));
+            } catch (IOException e) {
+                throw new IllegalStateException(String.format("Couldn't list stored backpacks: %1$s", e.getMessage()), e);
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Syncs a directory to disk, making the files created, renamed or deleted in it durable.
+     * <p>
+     * Directories can't be opened on some platforms, such as Windows, which sync them along
+     * with the files in them, so the directory is skipped there.
+     *
+     * @param directory The directory to sync.
+     * @throws IOException If the directory couldn't be synced.
+     */
+    static void syncDirectory(Path directory) throws IOException {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(directory, StandardOpenOption.READ);
+        } catch (IOException e) {
+            return;
+        }
+        try (channel) {
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Resolves the file holding the contents of a backpack.
+     * <p>
+     * Backpack IDs are UUIDs, which is verified so that an ID can never point outside the store's directory.
+     *
+     * @param id The ID of the backpack.
+     * @return The path of the contents file.
+     * @throws IllegalArgumentException If the provided ID is null or isn't a UUID.
+     */
+    private Path getPath(String id) {
+        if (id != null) {
+            return directory.resolve(UUID.fromString(id) + ".bin");
+        } else {
+            throw new IllegalArgumentException("ID cannot be null");
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.jasonkaranik.backpacksplus.storage;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * A backpack store moving backpacks from a previously used store to the current one.
+ * <p>
+ * Backpacks are loaded from the current store, falling back to the previous store for
+ * backpacks that weren't saved since the current store was configured. Saving a backpack
+ * writes it to the current store and deletes it from the previous one, so backpacks move
+ * over one by one, as they are saved, instead of all at once.
+ *
+ * @see com.jasonkaranik.backpacksplus.enums.StorageMode
+ * @since 1.1.0
+ */
+public class MigratingBackpackStore implements BackpackStore {
+    private final BackpackStore store;
+
+    private final BackpackStore previous_store;
+
+    /**
+     * Creates a store moving backpacks from a previously used store to the current one.
+     *
+     * @param store          The current store.
+     * @param previous_store The previously used store.
+     * @throws IllegalArgumentException If either of the provided stores is null.
+     */
+    public MigratingBackpackStore(BackpackStore store, BackpackStore previous_store) {
+        if (store != null && previous_store != null) {
+            this.store = store;
+            this.previous_store = previous_store;
+        } else {
+            throw new IllegalArgumentException("Stores cannot be null");
+        }
+    }
+
+    @Nullable
+    @Override
+    public byte[] load(String id) {
+        byte[] contents = store.load(id);
+        return contents != null ? contents : previous_store.load(id);
+    }
+
+    @Nullable
+    @Override
+    public byte[] loadHeader(String id, int length) {
+        byte[] header = store.loadHeader(id, length);
+        return header != null ? header : previous_store.loadHeader(id, length);
+    }
+
+    @Override
+    public int getLength(String id) {
+        int length = store.getLength(id);
+        return length >= 0 ? length : previous_store.getLength(id);
+    }
+
+    @Override
+    public void save(String id, byte[] contents) {
+        store.save(id, contents);
+        previous_store.delete(id);
+    }
+
+    @Override
+    public void delete(String id) {
+        store.delete(id);
+        previous_store.delete(id);
+    }
+
+    @Nonnull
+    @Override
+    public Set<String> getIDs() {
+        Set<String> ids = new HashSet<>(store.getIDs());
+        ids.addAll(previous_store.getIDs());
+        return ids;
+    }
+
+    @Override
+    public void sync() {
+        store.sync();
+        previous_store.sync();
+    }
+
+    @Override
+    public void close() {
+        store.close();
+        previous_store.close();
+    }
+}
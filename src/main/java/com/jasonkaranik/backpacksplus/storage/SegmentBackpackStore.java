@@ -0,0 +1,681 @@
+package com.jasonkaranik.backpacksplus.storage;
+
+import com.jasonkaranik.backpacksplus.BackpacksPlus;
+import org.bukkit.Bukkit;
+import org.bukkit.scheduler.BukkitTask;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * A backpack store appending the contents of all backpacks to a few large segment files.
+ * <p>
+ * Saving a backpack appends a record to the newest segment, and an in-memory index maps
+ * each backpack ID to the segment, offset and length of its latest record. Segments are
+ * read through memory mappings, so loading a backpack copies its contents straight out of
+ * the page cache without any read calls. The index is rebuilt by scanning the segments
+ * when the store is created, stopping at a record torn by a crash.
+ * <p>
+ * Records are written without syncing them, and syncing the store syncs every segment
+ * written to since the last sync at once.
+ * <p>
+ * Saving a backpack again leaves its previous record behind as dead space. Segments whose
+ * share of dead space reaches {@link #COMPACTION_THRESHOLD} are compacted in the background,
+ * by copying their live records to a file for the next generation of the segment. The file
+ * is synced and renamed into place before the index is pointed at it, and the previous file
+ * is deleted once it's closed. Records are copied without holding the store's lock, so loads
+ * and saves only wait for the index to be pointed at the new file.
+ * <p>
+ * Segment files are named after their number and, once compacted, their generation, so a
+ * compaction never replaces a file that may still be mapped. When the store is created, the
+ * latest generation of each segment is scanned and the files of earlier generations are deleted.
+ *
+ * @see BackpackStore
+ * @since 1.1.0
+ */
+public class SegmentBackpackStore implements BackpackStore {
+    /**
+     * The size in bytes after which a new segment is started.
+     */
+    private static final long SEGMENT_SIZE = 64L << 20;
+
+    /**
+     * The share of a segment's size taken by dead records above which the segment is compacted.
+     */
+    private static final double COMPACTION_THRESHOLD = 0.5;
+
+    /**
+     * The delay in server ticks between background compactions.
+     */
+    private static final long COMPACTION_INTERVAL_TICKS = 1200L;
+
+    /**
+     * The length of a record header: the backpack ID, the contents length and a checksum.
+     */
+    private static final int RECORD_HEADER_LENGTH = 24;
+
+    /**
+     * Written as the contents length of records deleting a backpack.
+     */
+    private static final int DELETED = -1;
+
+    /**
+     * Matches the names of segment files, capturing the segment's number and its generation, which is left out until the segment is compacted.
+     */
+    private static final Pattern SEGMENT_NAME = Pattern.compile("segment-(\\d+)(?:-(\\d+))?\\.dat");
+
+    private final Path directory;
+
+    private final Map<UUID, Location> index = new HashMap<>();
+
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+
+    /**
+     * The segments with records that weren't synced to disk yet.
+     */
+    private final Set<Segment> unsynced = new HashSet<>();
+
+    /**
+     * Held while segments are compacted, so that only one compaction runs at a time and the store isn't closed during one.
+     */
+    private final Object compaction_lock = new Object();
+
+    /**
+     * Whether segments were created since the directory was last synced.
+     */
+    private boolean directory_unsynced = false;
+
+    private Segment active;
+
+    private BukkitTask compaction_task;
+
+    private boolean closed = false;
+
+    /**
+     * Creates a store keeping backpack contents in segments in a specific directory, rebuilding the index from any existing segments.
+     * <p>
+     * The directory is created when the first backpack is saved. Segments are compacted every
+     * {@link #COMPACTION_INTERVAL_TICKS} server ticks from then on.
+     *
+     * @param directory The directory holding the segments.
+     * @throws IllegalArgumentException If the provided directory is null.
+     * @throws IllegalStateException    If the existing segments couldn't be read.
+     */
+    public SegmentBackpackStore(Path directory) {
+        if (directory != null) {
+            this.directory = directory;
+            try {
+                if (Files.isDirectory(directory)) {
+                    // Left behind by a compaction interrupted before it renamed its file into place, while the segment still holds all records.
+                    List<Path> leftovers = new ArrayList<>();
+                    try (Stream<Path> files = Files.list(directory)) {
+                        files.filter(path -> path.getFileName().toString().matches("segment-\\d+-\\d+\\.dat\\.compact")).forEach(leftovers::add);
+                    }
+                    for (Path path : leftovers) {
+                        Files.delete(path);
+                    }
+
+                    List<Path> paths = getSegmentPaths();
+                    for (int i = 0; i < paths.size(); i++) {
+                        Path path = paths.get(i);
+                        if (i + 1 < paths.size() && getNumber(paths.get(i + 1)) == getNumber(path)) {
+                            // Superseded by a later generation, but left behind as it couldn't be deleted while it was mapped.
+                            Files.delete(path);
+                        } else if (getGeneration(path) > 0 && Files.size(path) == 0) {
+                            // Written by compacting a segment without live records, and only kept while an earlier generation was left behind.
+                            Files.delete(path);
+                        } else {
+                            scan(open(getNumber(path), getGeneration(path)));
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException(String.format("Couldn't read backpack segments: %1$s", e.getMessage()), e);
+            }
+            active = segments.isEmpty() ? null : segments.lastEntry().getValue();
+            compaction_task = Bukkit.getScheduler().runTaskTimerAsynchronously(BackpacksPlus.getPlugin(), this::compact, COMPACTION_INTERVAL_TICKS, COMPACTION_INTERVAL_TICKS);
+        } else {
+            throw new IllegalArgumentException("Directory cannot be null");
+        }
+    }
+
+    @Nullable
+    @Override
+    public synchronized byte[] load(String id) {
+        Location location = index.get(toUUID(id));
+        if (location != null) {
+            try {
+                byte[] contents = new byte[location.length];
+                location.segment.map(location.offset + RECORD_HEADER_LENGTH + location.length).get(Math.toIntExact(location.offset + RECORD_HEADER_LENGTH), contents);
+                return contents;
+            } catch (IOException e) {
+                throw new IllegalStateException(String.format("Couldn't load contents of backpack %1$s: %2$s", id, e.getMessage()), e);
+            }
+        }
+        return null;
+    }
+
+    @Nullable
+    @Override
+    public synchronized byte[] loadHeader(String id, int length) {
+        Location location = index.get(toUUID(id));
+        if (location != null) {
+            try {
+                byte[] header = new byte[Math.min(length, location.length)];
+                location.segment.map(location.offset + RECORD_HEADER_LENGTH + location.length).get(Math.toIntExact(location.offset + RECORD_HEADER_LENGTH), header);
+                return header;
+            } catch (IOException e) {
+                throw new IllegalStateException(String.format("Couldn't load contents of backpack %1$s: %2$s", id, e.getMessage()), e);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public synchronized int getLength(String id) {
+        Location location = index.get(toUUID(id));
+        return location != null ? location.length : -1;
+    }
+
+    @Override
+    public synchronized void save(String id, byte[] contents) {
+        if (contents != null) {
+            UUID uuid = toUUID(id);
+            try {
+                append(uuid, ByteBuffer.wrap(contents));
+            } catch (IOException e) {
+                throw new IllegalStateException(String.format("Couldn't save contents of backpack %1$s: %2$s", id, e.getMessage()), e);
+            }
+        } else {
+            throw new IllegalArgumentException("Contents cannot be null");
+        }
+    }
+
+    @Override
+    public synchronized void delete(String id) {
+        UUID uuid = toUUID(id);
+        if (index.containsKey(uuid)) {
+            try {
+                append(uuid, null);
+            } catch (IOException e) {
+                throw new IllegalStateException(String.format("Couldn't delete contents of backpack %1$s: %2$s", id, e.getMessage()), e);
+            }
+        }
+    }
+
+    /**
+     * Syncs every segment written to since the last sync, without blocking loads and saves while the disk catches up.
+     */
+    @Override
+    public void sync() {
+        List<Segment> segments_to_sync;
+        boolean sync_directory;
+        synchronized (this) {
+            segments_to_sync = new ArrayList<>(unsynced);
+            sync_directory = directory_unsynced;
+            unsynced.clear();
+            directory_unsynced = false;
+        }
+
+        try {
+            for (Segment segment : segments_to_sync) {
+                try {
+                    segment.channel.force(true);
+                } catch (ClosedChannelException ignored) {
+                    // The segment was compacted in the meantime, and its live records were synced to the next generation of the segment.
+                }
+            }
+            if (sync_directory) {
+                FileBackpackStore.syncDirectory(directory);
+            }
+        } catch (IOException e) {
+            synchronized (this) {
+                for (Segment segment : segments_to_sync) {
+                    if (segment.channel.isOpen()) {
+                        unsynced.add(segment);
+                    }
+                }
+                directory_unsynced |= sync_directory;
+            }
+            throw new IllegalStateException(String.format("Couldn't sync backpack segments: %1$s", e.getMessage()), e);
+        }
+    }
+
+    @Nonnull
+    @Override
+    public synchronized Set<String> getIDs() {
+        Set<String> ids = new HashSet<>();
+        for (UUID uuid : index.keySet()) {
+            ids.add(uuid.toString());
+        }
+        return ids;
+    }
+
+    /**
+     * Stops compacting in the background, waiting for a running compaction to finish, and closes all segments.
+     */
+    @Override
+    public void close() {
+        compaction_task.cancel();
+        synchronized (compaction_lock) {
+            synchronized (this) {
+                closed = true;
+                for (Segment segment : segments.values()) {
+                    try {
+                        segment.channel.close();
+                    } catch (IOException e) {
+                        BackpacksPlus.getPlugin().getLogger().warning(String.format("Couldn't close backpack segment %1$s: %2$s", segment.number, e.getMessage()));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Compacts every segment, other than the newest one, whose share of dead space reached the threshold.
+     * <p>
+     * Segments are compacted one at a time, and the store's lock is only held to select the
+     * live records of a segment and to point the index at the compacted segment.
+     *
+     * @since 1.1.0
+     */
+    public void compact() {
+        synchronized (compaction_lock) {
+            List<Segment> candidates = new ArrayList<>();
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                for (Segment segment : segments.values()) {
+                    if (segment != active && segment.getDeadRatio() >= COMPACTION_THRESHOLD) {
+                        candidates.add(segment);
+                    }
+                }
+            }
+            for (Segment segment : candidates) {
+                try {
+                    compact(segment);
+                } catch (IOException e) {
+                    BackpacksPlus.getPlugin().getLogger().severe(String.format("Couldn't compact backpack segment %1$s: %2$s", segment.number, e.getMessage()));
+                }
+            }
+        }
+    }
+
+    /**
+     * Retrieves the number of backpacks held by the store.
+     *
+     * @return The number of indexed backpacks.
+     * @since 1.1.0
+     */
+    public synchronized int getSize() {
+        return index.size();
+    }
+
+    /**
+     * Retrieves the total size of all segments.
+     *
+     * @return The size of all segments in bytes.
+     * @since 1.1.0
+     */
+    public synchronized long getSegmentBytes() {
+        return segments.values().stream().mapToLong(segment -> segment.size).sum();
+    }
+
+    /**
+     * Retrieves the total size of all dead records, which is reclaimed by compaction.
+     *
+     * @return The size of all dead records in bytes.
+     * @since 1.1.0
+     */
+    public synchronized long getDeadBytes() {
+        return segments.values().stream().mapToLong(segment -> segment.size - segment.live).sum();
+    }
+
+    /**
+     * Appends a record to the newest segment and indexes it, starting a new segment first if the newest one is full.
+     *
+     * @param uuid     The ID of the backpack.
+     * @param contents The new contents, or null to delete the backpack.
+     * @throws IOException If the record couldn't be written.
+     */
+    private void append(UUID uuid, @Nullable ByteBuffer contents) throws IOException {
+        int length = contents != null ? contents.remaining() : DELETED;
+        long record_length = RECORD_HEADER_LENGTH + Math.max(length, 0);
+        if (active == null || (active.size > 0 && active.size + record_length > SEGMENT_SIZE)) {
+            Files.createDirectories(directory);
+            active = open(active != null ? active.number + 1 : 0, 0);
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_LENGTH);
+        header.putLong(uuid.getMostSignificantBits()).putLong(uuid.getLeastSignificantBits()).putInt(length);
+        header.putInt(checksum(header.array(), contents));
+        header.flip();
+
+        long offset = active.size;
+        long position = offset;
+        while (header.hasRemaining()) {
+            position += active.channel.write(header, position);
+        }
+        if (contents != null) {
+            ByteBuffer data = contents.duplicate();
+            while (data.hasRemaining()) {
+                position += active.channel.write(data, position);
+            }
+        }
+        active.size = position;
+        unsynced.add(active);
+        index(active, uuid, offset, length);
+    }
+
+    /**
+     * Updates the index with a record, keeping track of each segment's live bytes.
+     *
+     * @param segment The segment holding the record.
+     * @param uuid    The ID of the backpack.
+     * @param offset  The offset of the record in the segment.
+     * @param length  The contents length of the record, or {@link #DELETED}.
+     */
+    private void index(Segment segment, UUID uuid, long offset, int length) {
+        Location previous = length != DELETED ? index.put(uuid, new Location(segment, offset, length)) : index.remove(uuid);
+        if (previous != null) {
+            previous.segment.live -= RECORD_HEADER_LENGTH + previous.length;
+        }
+        if (length != DELETED) {
+            segment.live += RECORD_HEADER_LENGTH + length;
+        }
+    }
+
+    /**
+     * Indexes the records of a segment, truncating it at the first incomplete or corrupted record.
+     *
+     * @param segment The segment to scan.
+     * @throws IOException If the segment couldn't be read or truncated.
+     */
+    private void scan(Segment segment) throws IOException {
+        long file_size = segment.channel.size();
+        ByteBuffer buffer = segment.map(file_size);
+        long offset = 0;
+        while (offset + RECORD_HEADER_LENGTH <= file_size) {
+            int position = Math.toIntExact(offset);
+            UUID uuid = new UUID(buffer.getLong(position), buffer.getLong(position + 8));
+            int length = buffer.getInt(position + 16);
+            if (length < DELETED || offset + RECORD_HEADER_LENGTH + Math.max(length, 0) > file_size) {
+                break;
+            }
+            byte[] header = new byte[RECORD_HEADER_LENGTH];
+            buffer.get(position, header, 0, 20);
+            ByteBuffer contents = length != DELETED ? buffer.slice(position + RECORD_HEADER_LENGTH, length) : null;
+            if (buffer.getInt(position + 20) != checksum(header, contents)) {
+                break;
+            }
+            index(segment, uuid, offset, length);
+            offset += RECORD_HEADER_LENGTH + Math.max(length, 0);
+        }
+
+        if (offset < file_size) {
+            BackpacksPlus.getPlugin().getLogger().warning(String.format("Truncating corrupted records at the end of backpack segment %1$s", segment.number));
+            segment.channel.truncate(offset);
+            segment.mapped = null;
+        }
+        segment.size = offset;
+    }
+
+    /**
+     * Rewrites a segment with only its live records to the next generation of the segment.
+     * <p>
+     * Segments other than the newest one are never written to, so their records are read and
+     * copied to a temporary file without holding the store's lock. The file is synced and renamed
+     * to the segment's next generation before the index is pointed at it under the lock, and the
+     * previous generation is deleted once it's closed. Records that were superseded while they
+     * were copied are left in the file as dead space.
+     * <p>
+     * A segment without live records is rewritten to an empty file, which is deleted along
+     * with the previous generation. If the previous generation couldn't be deleted, as it's
+     * still mapped, both are deleted the next time the store is created.
+     * <p>
+     * Records deleting a backpack are kept as long as older segments exist, as they may
+     * still hold records of the deleted backpack that would otherwise be indexed again.
+     *
+     * @param segment The segment to compact.
+     * @throws IOException If the records couldn't be copied or the next generation couldn't be renamed into place.
+     */
+    private void compact(Segment segment) throws IOException {
+        ByteBuffer buffer;
+        long size;
+        synchronized (this) {
+            if (closed || segments.get(segment.number) != segment) {
+                return;
+            }
+            size = segment.size;
+            buffer = segment.map(size).duplicate();
+        }
+
+        List<Record> records = new ArrayList<>();
+        long offset = 0;
+        while (offset < size) {
+            int position = Math.toIntExact(offset);
+            int length = buffer.getInt(position + 16);
+            records.add(new Record(new UUID(buffer.getLong(position), buffer.getLong(position + 8)), offset, length));
+            offset += RECORD_HEADER_LENGTH + Math.max(length, 0);
+        }
+
+        synchronized (this) {
+            boolean older_segments = segments.firstKey() < segment.number;
+            records.removeIf(record -> {
+                Location location = index.get(record.uuid);
+                return record.length != DELETED ? location == null || location.segment != segment || location.offset != record.offset : location != null || !older_segments;
+            });
+        }
+
+        long generation = segment.generation + 1;
+        Path path = getPath(segment.number, generation);
+        Path temp_path = path.resolveSibling(path.getFileName() + ".compact");
+        long compacted_size = 0;
+        try (FileChannel channel = FileChannel.open(temp_path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            for (Record record : records) {
+                record.compacted_offset = compacted_size;
+                ByteBuffer data = buffer.slice(Math.toIntExact(record.offset), RECORD_HEADER_LENGTH + Math.max(record.length, 0));
+                while (data.hasRemaining()) {
+                    compacted_size += channel.write(data, compacted_size);
+                }
+            }
+            channel.force(true);
+        }
+        try {
+            Files.move(temp_path, path, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp_path);
+            throw e;
+        }
+        FileBackpackStore.syncDirectory(directory);
+
+        Segment compacted = records.isEmpty() ? null : new Segment(segment.number, generation, path, FileChannel.open(path, StandardOpenOption.READ));
+        synchronized (this) {
+            if (closed) {
+                // The next generation is complete, so it's scanned instead of the previous one the next time the store is created.
+                if (compacted != null) {
+                    compacted.channel.close();
+                }
+                return;
+            }
+            if (compacted != null) {
+                compacted.size = compacted_size;
+                for (Record record : records) {
+                    Location location = index.get(record.uuid);
+                    if (record.length != DELETED && location != null && location.segment == segment && location.offset == record.offset) {
+                        index.put(record.uuid, new Location(compacted, record.compacted_offset, record.length));
+                        compacted.live += RECORD_HEADER_LENGTH + record.length;
+                    }
+                }
+                segments.put(segment.number, compacted);
+            } else {
+                segments.remove(segment.number);
+            }
+            unsynced.remove(segment);
+            segment.channel.close();
+            segment.mapped = null;
+        }
+
+        try {
+            Files.delete(segment.path);
+            if (compacted == null) {
+                Files.delete(path);
+            }
+            FileBackpackStore.syncDirectory(directory);
+        } catch (IOException e) {
+            BackpacksPlus.getPlugin().getLogger().fine(String.format("Couldn't delete the previous generation of backpack segment %1$s, it's deleted the next time the store is created: %2$s", segment.number, e.getMessage()));
+        }
+    }
+
+    private Segment open(long number, long generation) throws IOException {
+        Path path = getPath(number, generation);
+        directory_unsynced |= !Files.exists(path);
+        Segment segment = new Segment(number, generation, path, FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE));
+        segments.put(number, segment);
+        return segment;
+    }
+
+    private Path getPath(long number, long generation) {
+        return directory.resolve(generation > 0 ? String.format("segment-%1$s-%2$s.dat", number, generation) : String.format("segment-%1$s.dat", number));
+    }
+
+    private List<Path> getSegmentPaths() throws IOException {
+        List<Path> paths = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(path -> SEGMENT_NAME.matcher(path.getFileName().toString()).matches()).forEach(paths::add);
+        }
+        paths.sort((a, b) -> getNumber(a) != getNumber(b) ? Long.compare(getNumber(a), getNumber(b)) : Long.compare(getGeneration(a), getGeneration(b)));
+        return paths;
+    }
+
+    private long getNumber(Path segment) {
+        Matcher matcher = SEGMENT_NAME.matcher(segment.getFileName().toString());
+        matcher.matches();
+        return Long.parseLong(matcher.group(1));
+    }
+
+    private long getGeneration(Path segment) {
+        Matcher matcher = SEGMENT_NAME.matcher(segment.getFileName().toString());
+        matcher.matches();
+        return matcher.group(2) != null ? Long.parseLong(matcher.group(2)) : 0;
+    }
+
+    private static UUID toUUID(String id) {
+        if (id != null) {
+            return UUID.fromString(id);
+        } else {
+            throw new IllegalArgumentException("ID cannot be null");
+        }
+    }
+
+    private static int checksum(byte[] header, @Nullable ByteBuffer contents) {
+        CRC32 crc = new CRC32();
+        crc.update(header, 0, 20);
+        if (contents != null) {
+            crc.update(contents.duplicate());
+        }
+        return (int) crc.getValue();
+    }
+
+    /**
+     * A generation of a segment, with the file it's open on and the read-only mapping of its contents.
+     */
+    private static class Segment {
+        private final long number;
+
+        private final long generation;
+
+        private final Path path;
+
+        private final FileChannel channel;
+
+        private MappedByteBuffer mapped;
+
+        private long size;
+
+        private long live;
+
+        private Segment(long number, long generation, Path path, FileChannel channel) {
+            this.number = number;
+            this.generation = generation;
+            this.path = path;
+            this.channel = channel;
+        }
+
+        /**
+         * Retrieves a mapping of the segment covering at least a specific length, mapping the segment again if it grew past the current mapping.
+         *
+         * @param length The length the mapping has to cover.
+         * @return The read-only mapping of the segment.
+         * @throws IOException If the segment couldn't be mapped.
+         */
+        private MappedByteBuffer map(long length) throws IOException {
+            if (mapped == null || mapped.capacity() < length) {
+                mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.max(length, size));
+            }
+            return mapped;
+        }
+
+        private double getDeadRatio() {
+            return size > 0 ? (double) (size - live) / size : 0;
+        }
+    }
+
+    /**
+     * A record read from a segment being compacted.
+     */
+    private static class Record {
+        private final UUID uuid;
+
+        private final long offset;
+
+        private final int length;
+
+        private long compacted_offset;
+
+        private Record(UUID uuid, long offset, int length) {
+            this.uuid = uuid;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    /**
+     * The location of a backpack's latest record.
+     */
+    private static class Location {
+        private final Segment segment;
+
+        private final long offset;
+
+        private final int length;
+
+        private Location(Segment segment, long offset, int length) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+}
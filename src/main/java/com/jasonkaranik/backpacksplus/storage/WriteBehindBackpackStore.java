@@ -0,0 +1,620 @@
+package com.jasonkaranik.backpacksplus.storage;
+
+import com.jasonkaranik.backpacksplus.BackpacksPlus;
+import org.bukkit.Bukkit;
+import org.bukkit.scheduler.BukkitTask;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UTFDataFormatException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * A backpack store that queues writes in memory and flushes them to another store in the background.
+ * <p>
+ * Saving or deleting a backpack only appends the change to a journal and queues it, so
+ * the main thread never waits for the other store. Repeated changes to the same backpack
+ * are coalesced, and only its latest contents are written when the queue is flushed.
+ * Loads return queued contents first, so queued changes are visible right away.
+ * <p>
+ * Every change is appended to the journal before it is queued, and the journal is synced to
+ * disk in the background every tick, so all changes queued during a tick share a single sync
+ * and the main thread never waits for the disk. A queued change survives a crash of the server
+ * right away, and a power loss once the journal was synced. If the server stops before the
+ * queue is flushed, the journal is replayed into the other store the next time this store is
+ * created. The journal is split into generations, one per flush, and a generation is deleted
+ * once all of its changes were written and the other store was synced.
+ * <p>
+ * The queue holds up to {@link #MAX_PENDING_WRITES} backpacks. Changes to further backpacks
+ * flush the queue on the calling thread first, which is counted as a back-pressure stall.
+ *
+ * @see BackpackStore
+ * @since 1.1.0
+ */
+public class WriteBehindBackpackStore implements BackpackStore {
+    /**
+     * The delay in server ticks between background flushes of the queue.
+     */
+    private static final long FLUSH_INTERVAL_TICKS = 20L;
+
+    /**
+     * The delay in server ticks between background syncs of the journal.
+     */
+    private static final long JOURNAL_SYNC_INTERVAL_TICKS = 1L;
+
+    /**
+     * The number of backpacks that can have queued changes before changes are flushed on the calling thread.
+     */
+    private static final int MAX_PENDING_WRITES = 1024;
+
+    private static final byte OPERATION_SAVE = 1;
+
+    private static final byte OPERATION_DELETE = 2;
+
+    /**
+     * Queued in place of contents for backpacks that are to be deleted.
+     */
+    private static final byte[] DELETED = new byte[0];
+
+    private final BackpackStore store;
+
+    private final Path directory;
+
+    private final Object flush_lock = new Object();
+
+    private final AtomicLong queued_writes = new AtomicLong();
+
+    private final AtomicLong coalesced_writes = new AtomicLong();
+
+    private final AtomicLong flushed_writes = new AtomicLong();
+
+    private final AtomicLong back_pressure_stalls = new AtomicLong();
+
+    private Map<String, byte[]> pending = new LinkedHashMap<>();
+
+    /**
+     * The changes currently being written by a flush, or {@code null} if no flush is running.
+     */
+    private Map<String, byte[]> flushing = null;
+
+    private long generation;
+
+    private FileChannel journal;
+
+    /**
+     * Whether changes were appended to the journal since it was last synced.
+     */
+    private boolean journal_unsynced = false;
+
+    /**
+     * Whether a journal generation was created since the directory was last synced.
+     */
+    private boolean journal_created = false;
+
+    private int max_pending_writes = 0;
+
+    private BukkitTask flush_task;
+
+    private BukkitTask journal_sync_task;
+
+    private boolean closed = false;
+
+    /**
+     * Creates a store queueing writes to another store, replaying any changes left in the journal first.
+     * <p>
+     * The queue is flushed every {@link #FLUSH_INTERVAL_TICKS} server ticks from then on, and
+     * the journal is synced every {@link #JOURNAL_SYNC_INTERVAL_TICKS} server ticks.
+     *
+     * @param store     The store to flush changes to.
+     * @param directory The directory holding the journal.
+     * @throws IllegalArgumentException If the provided store or directory is null.
+     * @throws IllegalStateException    If the journal couldn't be replayed or created.
+     */
+    public WriteBehindBackpackStore(BackpackStore store, Path directory) {
+        if (store != null && directory != null) {
+            this.store = store;
+            this.directory = directory;
+            try {
+                Files.createDirectories(directory);
+                List<Path> journals = getJournals();
+                generation = journals.isEmpty() ? 0 : getGeneration(journals.get(journals.size() - 1)) + 1;
+                if (!journals.isEmpty()) {
+                    replay(journals);
+                }
+                journal = openJournal(generation);
+                journal_created = true;
+            } catch (IOException e) {
+                throw new IllegalStateException(String.format("Couldn't replay backpack journal: %1$s", e.getMessage()), e);
+            }
+            flush_task = Bukkit.getScheduler().runTaskTimerAsynchronously(BackpacksPlus.getPlugin(), this::flush, FLUSH_INTERVAL_TICKS, FLUSH_INTERVAL_TICKS);
+            journal_sync_task = Bukkit.getScheduler().runTaskTimerAsynchronously(BackpacksPlus.getPlugin(), this::syncJournal, JOURNAL_SYNC_INTERVAL_TICKS, JOURNAL_SYNC_INTERVAL_TICKS);
+        } else {
+            throw new IllegalArgumentException("Store and directory cannot be null");
+        }
+    }
+
+    @Nullable
+    @Override
+    public byte[] load(String id) {
+        synchronized (this) {
+            byte[] contents = getQueued(id);
+            if (contents != null) {
+                return contents != DELETED ? contents : null;
+            }
+        }
+        return store.load(id);
+    }
+
+    @Nullable
+    @Override
+    public byte[] loadHeader(String id, int length) {
+        synchronized (this) {
+            byte[] contents = getQueued(id);
+            if (contents != null) {
+                return contents != DELETED ? Arrays.copyOf(contents, Math.min(length, contents.length)) : null;
+            }
+        }
+        return store.loadHeader(id, length);
+    }
+
+    @Override
+    public int getLength(String id) {
+        synchronized (this) {
+            byte[] contents = getQueued(id);
+            if (contents != null) {
+                return contents != DELETED ? contents.length : -1;
+            }
+        }
+        return store.getLength(id);
+    }
+
+    @Override
+    public void save(String id, byte[] contents) {
+        if (contents != null) {
+            queue(OPERATION_SAVE, id, contents);
+        } else {
+            throw new IllegalArgumentException("Contents cannot be null");
+        }
+    }
+
+    @Override
+    public void delete(String id) {
+        queue(OPERATION_DELETE, id, DELETED);
+    }
+
+    /**
+     * Retrieves the IDs of all backpacks the store holds contents for, including queued changes.
+     */
+    @Nonnull
+    @Override
+    public Set<String> getIDs() {
+        List<Map<String, byte[]>> changes = new ArrayList<>();
+        synchronized (this) {
+            if (flushing != null) {
+                changes.add(new LinkedHashMap<>(flushing));
+            }
+            changes.add(new LinkedHashMap<>(pending));
+        }
+
+        Set<String> ids = new HashSet<>(store.getIDs());
+        for (Map<String, byte[]> batch : changes) {
+            for (Map.Entry<String, byte[]> entry : batch.entrySet()) {
+                if (entry.getValue() != DELETED) {
+                    ids.add(entry.getKey());
+                } else {
+                    ids.remove(entry.getKey());
+                }
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Flushes the queue, which writes all queued changes to the other store and syncs it.
+     */
+    @Override
+    public void sync() {
+        flush();
+    }
+
+    /**
+     * Flushes the queue and stops flushing in the background, draining all changes into the other store.
+     */
+    @Override
+    public void close() {
+        flush_task.cancel();
+        journal_sync_task.cancel();
+        flush();
+        synchronized (this) {
+            closed = true;
+            try {
+                journal.force(true);
+                journal.close();
+                // Changes that failed to flush stay journaled, and are replayed the next time the store is created.
+                if (pending.isEmpty()) {
+                    Files.deleteIfExists(getJournalPath(generation));
+                }
+            } catch (IOException e) {
+                BackpacksPlus.getPlugin().getLogger().warning(String.format("Couldn't close backpack journal: %1$s", e.getMessage()));
+            }
+        }
+        store.close();
+    }
+
+    /**
+     * Writes all queued changes to the other store.
+     * <p>
+     * The queue is swapped for an empty one and the journal moves on to a new generation, so
+     * changes keep being queued while the flush runs. Changes that couldn't be written are queued
+     * again, unless they were superseded in the meantime, and retried on the next flush.
+     * <p>
+     * The batch's journal generation is only deleted after the other store was synced, so its
+     * changes can always be replayed until they're durable in the other store.
+     *
+     * @since 1.1.0
+     */
+    public void flush() {
+        synchronized (flush_lock) {
+            Map<String, byte[]> batch;
+            long batch_generation;
+            FileChannel batch_journal;
+            synchronized (this) {
+                if (pending.isEmpty() || closed) {
+                    return;
+                }
+                try {
+                    batch_journal = journal;
+                    journal = openJournal(generation + 1);
+                } catch (IOException e) {
+                    throw new IllegalStateException(String.format("Couldn't rotate backpack journal: %1$s", e.getMessage()), e);
+                }
+                batch = pending;
+                batch_generation = generation++;
+                flushing = batch;
+                pending = new LinkedHashMap<>();
+                journal_unsynced = false;
+                journal_created = true;
+            }
+
+            // The batch's generation is synced here instead of by the background sync, which only syncs the current generation.
+            try {
+                batch_journal.force(true);
+                batch_journal.close();
+            } catch (IOException e) {
+                BackpacksPlus.getPlugin().getLogger().warning(String.format("Couldn't sync backpack journal: %1$s", e.getMessage()));
+            }
+
+            Map<String, byte[]> failed = new LinkedHashMap<>();
+            for (Map.Entry<String, byte[]> entry : batch.entrySet()) {
+                try {
+                    if (entry.getValue() != DELETED) {
+                        store.save(entry.getKey(), entry.getValue());
+                    } else {
+                        store.delete(entry.getKey());
+                    }
+                    flushed_writes.incrementAndGet();
+                } catch (IllegalStateException e) {
+                    BackpacksPlus.getPlugin().getLogger().severe(e.getMessage());
+                    failed.put(entry.getKey(), entry.getValue());
+                }
+            }
+
+            boolean synced = true;
+            try {
+                store.sync();
+            } catch (IllegalStateException e) {
+                BackpacksPlus.getPlugin().getLogger().severe(e.getMessage());
+                synced = false;
+            }
+
+            FileChannel current_journal = null;
+            synchronized (this) {
+                flushing = null;
+                try {
+                    // Failed changes are journaled again in the current generation, so that the batch's generation can be deleted.
+                    for (Map.Entry<String, byte[]> entry : failed.entrySet()) {
+                        if (!pending.containsKey(entry.getKey())) {
+                            appendJournal(entry.getValue() != DELETED ? OPERATION_SAVE : OPERATION_DELETE, entry.getKey(), entry.getValue());
+                            pending.put(entry.getKey(), entry.getValue());
+                            current_journal = journal;
+                        }
+                    }
+                } catch (IOException e) {
+                    BackpacksPlus.getPlugin().getLogger().severe(String.format("Couldn't update backpack journal: %1$s", e.getMessage()));
+                    synced = false;
+                }
+            }
+
+            // A generation left behind is replayed the next time the store is created, before any later generation.
+            if (synced) {
+                try {
+                    if (current_journal != null) {
+                        current_journal.force(true);
+                    }
+                    Files.deleteIfExists(getJournalPath(batch_generation));
+                } catch (IOException e) {
+                    BackpacksPlus.getPlugin().getLogger().severe(String.format("Couldn't update backpack journal: %1$s", e.getMessage()));
+                }
+            }
+        }
+    }
+
+    /**
+     * Retrieves the number of backpacks with queued changes.
+     *
+     * @return The current depth of the queue.
+     * @since 1.1.0
+     */
+    public synchronized int getPendingWrites() {
+        return pending.size();
+    }
+
+    /**
+     * Retrieves the highest number of backpacks that had queued changes at the same time.
+     *
+     * @return The highest depth the queue reached.
+     * @since 1.1.0
+     */
+    public synchronized int getMaxPendingWrites() {
+        return max_pending_writes;
+    }
+
+    /**
+     * Retrieves the number of changes queued since the store was created.
+     *
+     * @return The number of saves and deletes queued.
+     * @since 1.1.0
+     */
+    public long getQueuedWrites() {
+        return queued_writes.get();
+    }
+
+    /**
+     * Retrieves the number of queued changes that replaced an earlier change to the same backpack, which was never written.
+     *
+     * @return The number of coalesced changes.
+     * @since 1.1.0
+     */
+    public long getCoalescedWrites() {
+        return coalesced_writes.get();
+    }
+
+    /**
+     * Retrieves the number of changes written to the other store since the store was created.
+     *
+     * @return The number of flushed changes.
+     * @since 1.1.0
+     */
+    public long getFlushedWrites() {
+        return flushed_writes.get();
+    }
+
+    /**
+     * Retrieves the number of times a full queue had to be flushed on the calling thread.
+     *
+     * @return The number of back-pressure stalls.
+     * @since 1.1.0
+     */
+    public long getBackPressureStalls() {
+        return back_pressure_stalls.get();
+    }
+
+    /**
+     * Retrieves the latest queued change to a backpack, including changes that are being flushed. Must be called while holding the store's lock.
+     *
+     * @param id The ID of the backpack.
+     * @return The queued contents, {@link #DELETED} if the backpack's deletion is queued, or null if no change is queued.
+     */
+    @Nullable
+    private byte[] getQueued(String id) {
+        byte[] contents = pending.get(id);
+        return contents == null && flushing != null ? flushing.get(id) : contents;
+    }
+
+    /**
+     * Journals a change and queues it, flushing the queue first if it's full.
+     *
+     * @param operation The journal operation of the change.
+     * @param id        The ID of the backpack.
+     * @param contents  The new contents, or {@link #DELETED}.
+     * @throws IllegalArgumentException If the provided ID is null.
+     * @throws IllegalStateException    If the change couldn't be journaled.
+     */
+    private void queue(byte operation, String id, byte[] contents) {
+        if (id != null) {
+            boolean full;
+            synchronized (this) {
+                full = pending.size() >= MAX_PENDING_WRITES && !pending.containsKey(id);
+            }
+            if (full) {
+                back_pressure_stalls.incrementAndGet();
+                flush();
+            }
+
+            synchronized (this) {
+                if (closed) {
+                    throw new IllegalStateException("Backpack store is closed");
+                }
+                try {
+                    appendJournal(operation, id, contents);
+                } catch (IOException e) {
+                    throw new IllegalStateException(String.format("Couldn't journal contents of backpack %1$s: %2$s", id, e.getMessage()), e);
+                }
+                if (pending.put(id, contents) != null) {
+                    coalesced_writes.incrementAndGet();
+                }
+                queued_writes.incrementAndGet();
+                max_pending_writes = Math.max(max_pending_writes, pending.size());
+            }
+        } else {
+            throw new IllegalArgumentException("ID cannot be null");
+        }
+    }
+
+    /**
+     * Appends a change to the current journal generation, leaving it to be synced to disk by {@link #syncJournal()}.
+     * <p>
+     * Each record holds the operation, the backpack ID, the contents and a checksum, so that
+     * a record torn by a crash is detected and ignored when replaying.
+     *
+     * @param operation The journal operation of the change.
+     * @param id        The ID of the backpack.
+     * @param contents  The new contents, or {@link #DELETED}.
+     * @throws IOException If the record couldn't be written.
+     */
+    private void appendJournal(byte operation, String id, byte[] contents) throws IOException {
+        ByteArrayOutputStream record = new ByteArrayOutputStream(contents.length + id.length() + 19);
+        DataOutputStream output = new DataOutputStream(record);
+        output.writeByte(operation);
+        output.writeUTF(id);
+        output.writeInt(contents.length);
+        output.write(contents);
+        output.writeLong(checksum(operation, id, contents));
+
+        ByteBuffer buffer = ByteBuffer.wrap(record.toByteArray());
+        while (buffer.hasRemaining()) {
+            journal.write(buffer);
+        }
+        journal_unsynced = true;
+    }
+
+    /**
+     * Syncs the changes appended to the current journal generation since the last sync to disk.
+     * <p>
+     * The journal is synced outside the store's lock, so changes can still be queued while
+     * the disk catches up, and are synced together by the next call.
+     */
+    private void syncJournal() {
+        FileChannel channel;
+        boolean sync_directory;
+        synchronized (this) {
+            if (!journal_unsynced || closed) {
+                return;
+            }
+            channel = journal;
+            sync_directory = journal_created;
+            journal_unsynced = false;
+            journal_created = false;
+        }
+
+        try {
+            channel.force(true);
+            if (sync_directory) {
+                FileBackpackStore.syncDirectory(directory);
+            }
+        } catch (ClosedChannelException ignored) {
+            // The generation was rotated by a flush, which synced it before closing it.
+        } catch (IOException e) {
+            synchronized (this) {
+                journal_unsynced = true;
+                journal_created |= sync_directory;
+            }
+            BackpacksPlus.getPlugin().getLogger().warning(String.format("Couldn't sync backpack journal: %1$s", e.getMessage()));
+        }
+    }
+
+    /**
+     * Writes the changes left in journal generations to the other store, syncs it and deletes the journals.
+     * <p>
+     * Generations are replayed in order, so the latest change to each backpack wins.
+     * Each journal is read up to its first incomplete or corrupted record.
+     *
+     * @param journals The journal generations, in ascending order.
+     * @throws IOException If a journal couldn't be read or deleted.
+     */
+    private void replay(List<Path> journals) throws IOException {
+        Map<String, byte[]> changes = new LinkedHashMap<>();
+        for (Path path : journals) {
+            long size = Files.size(path);
+            try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+                while (true) {
+                    byte operation = input.readByte();
+                    String id = input.readUTF();
+                    int length = input.readInt();
+                    if (length < 0 || length > size) {
+                        BackpacksPlus.getPlugin().getLogger().warning(String.format("Ignoring corrupted records at the end of %1$s", path.getFileName()));
+                        break;
+                    }
+                    byte[] contents = new byte[length];
+                    input.readFully(contents);
+                    if (input.readLong() != checksum(operation, id, contents)) {
+                        BackpacksPlus.getPlugin().getLogger().warning(String.format("Ignoring corrupted records at the end of %1$s", path.getFileName()));
+                        break;
+                    }
+                    changes.put(id, operation == OPERATION_DELETE ? DELETED : contents);
+                }
+            } catch (EOFException ignored) {
+                // The end of the journal, or a record torn by a crash.
+            } catch (UTFDataFormatException e) {
+                BackpacksPlus.getPlugin().getLogger().warning(String.format("Ignoring corrupted records at the end of %1$s", path.getFileName()));
+            }
+        }
+
+        for (Map.Entry<String, byte[]> entry : changes.entrySet()) {
+            if (entry.getValue() != DELETED) {
+                store.save(entry.getKey(), entry.getValue());
+            } else {
+                store.delete(entry.getKey());
+            }
+        }
+        store.sync();
+        for (Path path : journals) {
+            Files.delete(path);
+        }
+        if (!changes.isEmpty()) {
+            BackpacksPlus.getPlugin().getLogger().info(String.format("Replayed %1$s pending backpack writes from the journal", changes.size()));
+        }
+    }
+
+    private List<Path> getJournals() throws IOException {
+        List<Path> journals = new ArrayList<>();
+        try (Stream<Path> paths = Files.list(directory)) {
+            paths.filter(path -> path.getFileName().toString().matches("journal-\\d+\\.log")).forEach(journals::add);
+        }
+        journals.sort((a, b) -> Long.compare(getGeneration(a), getGeneration(b)));
+        return journals;
+    }
+
+    private long getGeneration(Path journal) {
+        String name = journal.getFileName().toString();
+        return Long.parseLong(name.substring("journal-".length(), name.length() - ".log".length()));
+    }
+
+    private Path getJournalPath(long generation) {
+        return directory.resolve(String.format("journal-%1$s.log", generation));
+    }
+
+    private FileChannel openJournal(long generation) throws IOException {
+        return FileChannel.open(getJournalPath(generation), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private static long checksum(byte operation, String id, byte[] contents) {
+        CRC32 crc = new CRC32();
+        crc.update(operation);
+        crc.update(id.getBytes(StandardCharsets.UTF_8));
+        crc.update(contents);
+        return crc.getValue();
+    }
+}
@@ -1,29 +1,25 @@
 package com.jasonkaranik.backpacksplus.utils;
 
 import com.jasonkaranik.backpacksplus.BackpacksPlus;
+import com.jasonkaranik.backpacksplus.enums.PremadeItems;
 import org.bukkit.Bukkit;
-import org.bukkit.Material;
 import org.bukkit.entity.Player;
-import org.bukkit.event.EventHandler;
-import org.bukkit.event.EventPriority;
-import org.bukkit.event.HandlerList;
-import org.bukkit.event.Listener;
-import org.bukkit.event.inventory.*;
+import org.bukkit.event.inventory.ClickType;
+import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.scheduler.BukkitRunnable;
 
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
 import java.util.function.Function;
 
 public abstract class GUI {
-    private final Map<Integer, Function<InventoryClickEvent, Boolean>> clickable_items = new HashMap<>();
+    public static final Function<InventoryClickEvent, Boolean> CANCEL = event -> true;
+
+    private Function<InventoryClickEvent, Boolean>[] clickable_items;
 
     public Player player;
     public Inventory inv;
-    private Listener listener;
+    private boolean registered = false;
 
     private long lastClick = 0L;
 
@@ -33,6 +29,7 @@ public abstract class GUI {
                 if (size > 0 && size % 9 == 0 && size <= 54) {
                     this.player = player;
                     this.inv = Bukkit.createInventory(null, size, title);
+                    this.clickable_items = createHandlerTable(size);
                 } else {
                     throw new IllegalArgumentException("Size must be a positive multiple of 9 and not exceed 54");
                 }
@@ -44,8 +41,24 @@ public abstract class GUI {
         }
     }
 
+    @SuppressWarnings("unchecked")
+    private static Function<InventoryClickEvent, Boolean>[] createHandlerTable(int size) {
+        return (Function<InventoryClickEvent, Boolean>[]) new Function[size];
+    }
+
     public abstract void onOpen();
 
+    /**
+     * Places the items that never change while the GUI is open, such as borders and navigation.
+     * <p>
+     * Called once when the GUI is opened, before the first {@link #onUpdate()}, so that
+     * re-rendering the GUI only has to place the items that actually change.
+     *
+     * @since 1.1.0
+     */
+    public void onLayout() {
+    }
+
     public abstract void onUpdate();
 
     public abstract boolean onClick(InventoryClickEvent event);
@@ -53,9 +66,9 @@ public abstract class GUI {
     public abstract void onClose();
 
     private void clear() {
-        if (listener != null) {
-            HandlerList.unregisterAll(listener);
-            listener = null;
+        if (registered) {
+            GUIListener.unregister(this);
+            registered = false;
         }
     }
 
@@ -63,16 +76,39 @@ public abstract class GUI {
         return (System.currentTimeMillis() - lastClick) > 250L;
     }
 
-    public void setClickableItem(Integer slot, ItemStack item, Function<InventoryClickEvent, Boolean> callback) {
-        if (slot != null && item != null && callback != null) {
-            if (slot >= 0 && slot < inv.getSize()) {
+    public void setClickableItem(int slot, ItemStack item, Function<InventoryClickEvent, Boolean> callback) {
+        if (item != null && callback != null) {
+            if (slot >= 0 && slot < clickable_items.length) {
                 inv.setItem(slot, item);
-                clickable_items.put(slot, callback);
+                clickable_items[slot] = callback;
+            } else {
+                throw new IllegalArgumentException(String.format("Slot must be within inventory bounds: %1$s", slot));
+            }
+        } else {
+            throw new IllegalArgumentException("Item and callback cannot be null");
+        }
+    }
+
+    public void setClickableItem(int slot, PremadeItems item, Function<InventoryClickEvent, Boolean> callback) {
+        if (item != null && callback != null) {
+            if (slot >= 0 && slot < clickable_items.length) {
+                item.setItem(inv, slot);
+                clickable_items[slot] = callback;
             } else {
                 throw new IllegalArgumentException(String.format("Slot must be within inventory bounds: %1$s", slot));
             }
         } else {
-            throw new IllegalArgumentException("Slot, item, and callback cannot be null");
+            throw new IllegalArgumentException("Item and callback cannot be null");
+        }
+    }
+
+    public void setClickableItems(int[] slots, PremadeItems item, Function<InventoryClickEvent, Boolean> callback) {
+        if (slots != null) {
+            for (int slot : slots) {
+                setClickableItem(slot, item, callback);
+            }
+        } else {
+            throw new IllegalArgumentException("Slots cannot be null");
         }
     }
 
@@ -85,63 +121,47 @@ public abstract class GUI {
         return true;
     }
 
-    public void open() {
-        if (listener == null) {
-            listener = new Listener() {
-                @EventHandler(priority = EventPriority.HIGHEST)
-                private void onInventoryClick(InventoryClickEvent event) {
-                    if (event.getInventory().equals(inv) && event.getWhoClicked().getUniqueId().equals(player.getUniqueId())) {
-                        if (event.getClick() == ClickType.SWAP_OFFHAND) {
-                            player.getInventory().setItemInOffHand(null);
-                            event.setCancelled(true);
-                            return;
-                        }
-
-                        if (BackpacksPlus.isBackpackItem(Utils.getAssociatedItemFromClickEvent(event))) {
-                            event.setCancelled(true);
-                            return;
-                        }
-
-                        if (canClick()) {
-                            lastClick = System.currentTimeMillis();
-
-                            int slot = event.getRawSlot();
-                            if (clickable_items.containsKey(slot)) {
-                                event.setCancelled(clickable_items.get(slot).apply(event));
-                            } else {
-                                event.setCancelled(onClick(event));
-                            }
-                            return;
-                        }
-                        event.setCancelled(true);
-                    }
-                }
+    void handleClick(InventoryClickEvent event) {
+        if (event.getClick() == ClickType.SWAP_OFFHAND) {
+            player.getInventory().setItemInOffHand(null);
+            event.setCancelled(true);
+            return;
+        }
 
-                @EventHandler(priority = EventPriority.HIGHEST)
-                private void onInventoryOpen(InventoryOpenEvent event) {
-                    if (event.getInventory().equals(inv) && event.getPlayer().getUniqueId().equals(player.getUniqueId())) {
-                        onOpen();
-                    }
-                }
+        if (BackpacksPlus.isBackpackItem(Utils.getAssociatedItemFromClickEvent(event))) {
+            event.setCancelled(true);
+            return;
+        }
 
-                @EventHandler(priority = EventPriority.HIGHEST)
-                private void onInventoryDrag(InventoryDragEvent event) {
-                    if (event.getInventory().equals(inv) && event.getWhoClicked().getUniqueId().equals(player.getUniqueId())) {
-                        event.setCancelled(true);
-                    }
-                }
+        if (canClick()) {
+            lastClick = System.currentTimeMillis();
 
-                @EventHandler(priority = EventPriority.HIGHEST)
-                private void onInventoryClose(InventoryCloseEvent event) {
-                    if (event.getInventory().equals(inv) && event.getPlayer().getUniqueId().equals(player.getUniqueId())) {
-                        onClose();
-                        clear();
-                    }
-                }
-            };
+            int slot = event.getRawSlot();
+            Function<InventoryClickEvent, Boolean> callback = slot >= 0 && slot < clickable_items.length ? clickable_items[slot] : null;
+            if (callback != null) {
+                event.setCancelled(callback.apply(event));
+            } else {
+                event.setCancelled(onClick(event));
+            }
+            return;
+        }
+        event.setCancelled(true);
+    }
 
-            Bukkit.getPluginManager().registerEvents(listener, BackpacksPlus.getPlugin());
+    void handleClose() {
+        try {
+            onClose();
+        } finally {
+            clear();
+        }
+    }
+
+    public void open() {
+        if (!registered) {
+            GUIListener.register(this);
+            registered = true;
 
+            onLayout();
             onUpdate();
 
             new BukkitRunnable() {
@@ -154,16 +174,26 @@ public abstract class GUI {
         }
     }
 
+    /**
+     * The premade items shared by the plugin's GUIs.
+     * <p>
+     * Each field holds its own copy of the matching {@link PremadeItems} item, taken when this
+     * class is first used, so modifying these items no longer changes the items shown by the
+     * plugin's GUIs.
+     *
+     * @deprecated Use {@link PremadeItems} instead, which hands out a new copy of an item on every call.
+     */
+    @Deprecated
     public static class PREMADE_ITEMS {
         // NAVIGATION ITEMS
-        public static ItemStack NAVIGATION_BACKWARDS_II = Utils.createSkullItemStack("816ea34a6a6ec5c051e6932f1c471b7012b298d38d179f1b487c413f51959cd4", "&aFirst Backpack", List.of(Utils.colorify("&7Go to the first backpack")));
-        public static ItemStack NAVIGATION_BACKWARDS_I = Utils.createSkullItemStack("8652e2b936ca8026bd28651d7c9f2819d2e923697734d18dfdb13550f8fdad5f", "&aPrevious Backpack", List.of(Utils.colorify("&7Go to the previous backpack")));
-        public static ItemStack NAVIGATION_FORWARDS_I = Utils.createSkullItemStack("2a3b8f681daad8bf436cae8da3fe8131f62a162ab81af639c3e0644aa6abac2f", "&aNext Backpack", List.of(Utils.colorify("&7Go to the next backpack")));
-        public static ItemStack NAVIGATION_FORWARDS_II = Utils.createSkullItemStack("9c9ec71c1068ec6e03d2c9287f9da9193639f3a635e2fbd5d87c2fabe6499", "&aLast Backpack", List.of(Utils.colorify("&7Go to the last backpack")));
-        public static ItemStack CLOSE = Utils.createItemStack(Material.BARRIER, "&cClose menu", List.of());
+        public static ItemStack NAVIGATION_BACKWARDS_II = PremadeItems.NAVIGATION_BACKWARDS_II.getItem();
+        public static ItemStack NAVIGATION_BACKWARDS_I = PremadeItems.NAVIGATION_BACKWARDS_I.getItem();
+        public static ItemStack NAVIGATION_FORWARDS_I = PremadeItems.NAVIGATION_FORWARDS_I.getItem();
+        public static ItemStack NAVIGATION_FORWARDS_II = PremadeItems.NAVIGATION_FORWARDS_II.getItem();
+        public static ItemStack CLOSE = PremadeItems.CLOSE.getItem();
 
         // MISC
-        public static ItemStack BORDER = Utils.createItemStack(Material.BLACK_STAINED_GLASS_PANE, "", List.of());
-        public static ItemStack BACKPACK_CUSTOMIZER_EXPAND_MAX_SIZE_REACHED = Utils.createItemStack(Material.RED_STAINED_GLASS_PANE, "&cMax Size Reached", List.of("", Utils.colorify("&7Your backpack has reached"), Utils.colorify("&7the maximum size and"), Utils.colorify("&7cannot be expanded further")));
+        public static ItemStack BORDER = PremadeItems.BORDER.getItem();
+        public static ItemStack BACKPACK_CUSTOMIZER_EXPAND_MAX_SIZE_REACHED = PremadeItems.BACKPACK_CUSTOMIZER_EXPAND_MAX_SIZE_REACHED.getItem();
     }
 }
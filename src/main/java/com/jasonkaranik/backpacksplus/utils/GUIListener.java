@@ -0,0 +1,74 @@
+package com.jasonkaranik.backpacksplus.utils;
+
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryCloseEvent;
+import org.bukkit.event.inventory.InventoryDragEvent;
+import org.bukkit.event.inventory.InventoryOpenEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.inventory.Inventory;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Dispatches inventory events to the GUI owning the inventory involved.
+ * <p>
+ * A single instance of this listener is registered when the plugin is enabled, and
+ * every open GUI is looked up by its inventory, so events are routed to the right GUI
+ * without registering a listener per GUI.
+ *
+ * @see GUI
+ * @since 1.1.0
+ */
+public class GUIListener implements Listener {
+    private static final Map<Inventory, GUI> guis = new HashMap<>();
+
+    static void register(GUI gui) {
+        guis.put(gui.inv, gui);
+    }
+
+    static void unregister(GUI gui) {
+        guis.remove(gui.inv, gui);
+    }
+
+    @EventHandler(priority = EventPriority.HIGHEST)
+    private void onInventoryClick(InventoryClickEvent event) {
+        GUI gui = guis.get(event.getInventory());
+        if (gui != null && event.getWhoClicked().getUniqueId().equals(gui.player.getUniqueId())) {
+            gui.handleClick(event);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.HIGHEST)
+    private void onInventoryOpen(InventoryOpenEvent event) {
+        GUI gui = guis.get(event.getInventory());
+        if (gui != null && event.getPlayer().getUniqueId().equals(gui.player.getUniqueId())) {
+            gui.onOpen();
+        }
+    }
+
+    @EventHandler(priority = EventPriority.HIGHEST)
+    private void onInventoryDrag(InventoryDragEvent event) {
+        GUI gui = guis.get(event.getInventory());
+        if (gui != null && event.getWhoClicked().getUniqueId().equals(gui.player.getUniqueId())) {
+            event.setCancelled(true);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.HIGHEST)
+    private void onInventoryClose(InventoryCloseEvent event) {
+        GUI gui = guis.get(event.getInventory());
+        if (gui != null && event.getPlayer().getUniqueId().equals(gui.player.getUniqueId())) {
+            gui.handleClose();
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    private void onPlayerQuit(PlayerQuitEvent event) {
+        // GUIs that were never shown, e.g. because the player quit before the inventory opened, never receive a close event.
+        guis.values().removeIf(gui -> gui.player.getUniqueId().equals(event.getPlayer().getUniqueId()));
+    }
+}
@@ -1,17 +1,41 @@
 package com.jasonkaranik.backpacksplus.utils;
 
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.configuration.serialization.ConfigurationSerializable;
+import org.bukkit.configuration.serialization.ConfigurationSerialization;
 import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
 import org.bukkit.util.io.BukkitObjectInputStream;
 import org.bukkit.util.io.BukkitObjectOutputStream;
 import org.yaml.snakeyaml.external.biz.base64Coder.Base64Coder;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.UnaryOperator;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
 
 /**
- * Utility class for converting Bukkit ItemStack arrays to and from Base64-encoded strings.
+ * Utility class for converting Bukkit ItemStack arrays to and from a compact binary representation.
  * <p>
- * This class provides methods to encode ItemStacks into a storable string format
+ * This class provides methods to encode ItemStacks into a storable format
  * and decode them back into usable ItemStack arrays. The encoding process
  * preserves all item metadata including:
  * <ul>
@@ -22,57 +46,96 @@ import java.io.ByteArrayOutputStream;
  *   <li>Durability and damage values</li>
  * </ul>
  * <p>
- * The encoded format uses Base64 encoding to ensure the resulting string is safe
- * for storage in databases and configuration files.
+ * The binary format starts with a magic header followed by a format version, so that
+ * it can be told apart from the legacy Java-serialization format, which is still
+ * transparently accepted by the decoding methods. Similar items are written once, as
+ * a dictionary of templates made of a material name and a length-prefixed meta blob.
+ * Only non-empty slots are written, each as its slot index, template index and amount.
+ * Arrays encoded in format version 1, which wrote the material and meta of every slot,
+ * are still accepted.
+ * <p>
+ * Since templates can be skipped without decoding them and slots are written as
+ * independent records, single slots can be read from or replaced in an encoded array
+ * without decoding or re-encoding any of the other slots.
+ * <p>
+ * Encoded arrays larger than the compression threshold have everything following the
+ * format version and flags compressed with Deflate, which is marked in the flags byte.
+ * Compressed arrays are transparently inflated by every decoding method. Arrays moved to
+ * the cold tier are compressed at the highest compression level regardless of their
+ * size, which is marked by a second flag, until they are rehydrated.
+ * <p>
+ * Arrays spanning multiple pages can be encoded as a paged container, made of a page size
+ * and one independently encoded array per page, so that a single page can be decoded or
+ * replaced without touching any of the other pages. Every decoding and splicing method
+ * accepts paged containers, addressing slots across all pages.
+ * <p>
+ * The string variants wrap the binary format in Base64 to ensure the resulting string
+ * is safe for storage in databases and configuration files.
  *
  * @since 1.0.0
  */
 public class ItemStackCodec {
+    private static final byte[] MAGIC = {'B', 'P', 'I', 'S'};
+
+    private static final byte[] PAGED_MAGIC = {'B', 'P', 'P', 'G'};
+
+    private static final int PAGED_FORMAT_VERSION = 1;
+
+    private static final int FORMAT_VERSION = 2;
+
+    private static final int HEADER_LENGTH = MAGIC.length + 2;
+
+    private static final int FLAG_DEFLATE = 1;
+
+    private static final int FLAG_COLD = 2;
+
+    private static final int DEFAULT_COMPRESSION_THRESHOLD = 1024;
+
+    private static final ThreadLocal<Deflater> deflaters = ThreadLocal.withInitial(Deflater::new);
+
+    private static final ThreadLocal<Deflater> cold_deflaters = ThreadLocal.withInitial(() -> new Deflater(Deflater.BEST_COMPRESSION));
+
+    private static final ThreadLocal<Inflater> inflaters = ThreadLocal.withInitial(Inflater::new);
+
+    private static final int MAX_RETAINED_BUFFER_SIZE = 1 << 20;
+
+    private static final ThreadLocal<Buffers> buffers = ThreadLocal.withInitial(Buffers::new);
+
+    private static volatile int compression_threshold = DEFAULT_COMPRESSION_THRESHOLD;
+
+    private static byte[] empty_encoding = null;
+
+    private static final int TAG_NULL = 0;
+    private static final int TAG_STRING = 1;
+    private static final int TAG_BOOLEAN = 2;
+    private static final int TAG_INT = 3;
+    private static final int TAG_LONG = 4;
+    private static final int TAG_DOUBLE = 5;
+    private static final int TAG_FLOAT = 6;
+    private static final int TAG_SHORT = 7;
+    private static final int TAG_BYTE = 8;
+    private static final int TAG_LIST = 9;
+    private static final int TAG_MAP = 10;
+    private static final int TAG_SERIALIZABLE = 11;
+
     /**
      * Converts an array of ItemStacks into a Base64-encoded string representation.
      * <p>
-     * This method handles the encoding process by:
-     * <ol>
-     *   <li>Writing the array length as an integer</li>
-     *   <li>Writing each ItemStack object sequentially</li>
-     *   <li>Encoding the resulting byte array in Base64</li>
-     * </ol>
+     * The string contains the Base64-encoded output of {@link #encodeBytes(ItemStack[])}.
      *
      * @param obj The ItemStack array to encode.
-     * @return A Base64-encoded string containing the encoded items, or an empty string if the input is null or an error occurs during encoding. The empty string return value allows for safe decoding attempts.
+     * @return A Base64-encoded string containing the encoded items. If the input is null or an error occurs during encoding, the encoding of an empty array is returned instead. This allows for safe decoding attempts.
      * @see #decode(String)
      * @since 1.0.0
      */
     public static String encode(ItemStack[] obj) {
-        try {
-            if (obj != null) {
-                ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-                BukkitObjectOutputStream dataOutput = new BukkitObjectOutputStream(outputStream);
-
-                dataOutput.writeInt(obj.length);
-
-                for (ItemStack itemStack : obj) {
-                    dataOutput.writeObject(itemStack);
-                }
-
-                dataOutput.close();
-                return Base64Coder.encodeLines(outputStream.toByteArray());
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-        return encode(new ItemStack[]{});
+        return Base64.getEncoder().encodeToString(encodeBytes(obj));
     }
 
     /**
      * Converts a Base64-encoded string back into an array of ItemStacks.
      * <p>
-     * This method handles the decoding process by:
-     * <ol>
-     *   <li>Decoding the Base64 string into bytes</li>
-     *   <li>Reading the array length integer</li>
-     *   <li>Reading each ItemStack object sequentially</li>
-     * </ol>
+     * Both the binary format and the legacy Java-serialization format are accepted.
      *
      * @param str The Base64-encoded string to decode.
      * @return An array of ItemStacks containing the decode items. Returns an empty array if the input is null or an error occurs during decoding. Never returns null to ensure safety in calling code.
@@ -82,20 +145,1290 @@ public class ItemStackCodec {
     public static ItemStack[] decode(String str) {
         try {
             if (str != null) {
-                ByteArrayInputStream inputStream = new ByteArrayInputStream(Base64Coder.decodeLines(str));
-                BukkitObjectInputStream dataInput = new BukkitObjectInputStream(inputStream);
-                ItemStack[] items = new ItemStack[dataInput.readInt()];
+                return decodeBytes(Base64Coder.decodeLines(str));
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        return new ItemStack[]{};
+    }
 
-                for (int i = 0; i < items.length; i++) {
-                    items[i] = (ItemStack) dataInput.readObject();
-                }
+    /**
+     * Converts an array of ItemStacks into its binary representation.
+     * <p>
+     * This method handles the encoding process by:
+     * <ol>
+     *   <li>Writing the magic header, format version and server data version</li>
+     *   <li>Writing the array length and the material and meta blob of each distinct item</li>
+     *   <li>Writing the slot index, template index and amount of each non-empty slot</li>
+     * </ol>
+     * If an item carries metadata that the binary format cannot represent, the whole array
+     * is written in the legacy Java-serialization format instead, so no data is ever lost.
+     *
+     * @param obj The ItemStack array to encode.
+     * @return The encoded items. If the input is null or an error occurs during encoding, the encoding of an empty array is returned instead.
+     * @see #decodeBytes(byte[])
+     * @since 1.1.0
+     */
+    public static byte[] encodeBytes(ItemStack[] obj) {
+        if (obj == null) {
+            obj = new ItemStack[]{};
+        }
+
+        try {
+            return encodeBinary(obj);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
 
-                dataInput.close();
-                return items;
+        try {
+            return encodeLegacy(obj);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        return encodeEmpty();
+    }
+
+    /**
+     * Converts the binary representation of an ItemStack array back into an array of ItemStacks.
+     * <p>
+     * Both the binary format and the legacy Java-serialization format are accepted.
+     *
+     * @param bytes The encoded items.
+     * @return An array of ItemStacks containing the decoded items. Returns an empty array if the input is null or an error occurs during decoding.
+     * @see #encodeBytes(ItemStack[])
+     * @since 1.1.0
+     */
+    public static ItemStack[] decodeBytes(byte[] bytes) {
+        try {
+            if (bytes != null) {
+                return decodeAny(bytes);
             }
         } catch (Exception e) {
             e.printStackTrace();
         }
         return new ItemStack[]{};
     }
+
+    /**
+     * Decodes a single slot from the binary representation of an ItemStack array.
+     * <p>
+     * In the binary format, only the requested slot is decoded: the templates and records
+     * of all other slots are skipped without being read. Data in the legacy format is
+     * fully decoded instead.
+     *
+     * @param bytes The encoded items.
+     * @param slot  The index of the slot to decode.
+     * @return The item in the slot, or null if the slot is empty, out of bounds, or an error occurs during decoding.
+     * @throws IllegalArgumentException If the provided bytes are null.
+     * @see #splice(byte[], Map)
+     * @since 1.1.0
+     */
+    public static ItemStack decodeSlot(byte[] bytes, int slot) {
+        if (bytes != null) {
+            try {
+                if (isPagedFormat(bytes)) {
+                    Pages pages = readPages(bytes);
+                    int page = slot / pages.page_slots;
+                    return slot >= 0 && page < pages.pages.size() ? decodeSlot(pages.pages.get(page), slot % pages.page_slots) : null;
+                }
+                if (isBinaryFormat(bytes)) {
+                    bytes = decompress(bytes);
+                    ByteArrayInputStream inputStream = new ByteArrayInputStream(bytes);
+                    DataInputStream dataInput = new DataInputStream(inputStream);
+                    int version = readHeader(dataInput);
+                    int dataVersion = readVarInt(dataInput);
+                    readVarInt(dataInput); // Array length.
+
+                    if (version == 1) {
+                        int count = readVarInt(dataInput);
+                        for (int i = 0; i < count; i++) {
+                            if (readVarInt(dataInput) == slot) {
+                                return readItem(dataInput, dataVersion);
+                            }
+                            readVarInt(dataInput); // Amount.
+                            skipTemplate(dataInput);
+                        }
+                        return null;
+                    }
+
+                    int[] templateOffsets = new int[readVarInt(dataInput)];
+                    for (int i = 0; i < templateOffsets.length; i++) {
+                        templateOffsets[i] = bytes.length - inputStream.available();
+                        skipTemplate(dataInput);
+                    }
+
+                    int count = readVarInt(dataInput);
+                    for (int i = 0; i < count; i++) {
+                        int recordSlot = readVarInt(dataInput);
+                        int template = readVarInt(dataInput);
+                        int amount = readVarInt(dataInput);
+                        if (recordSlot == slot) {
+                            int offset = templateOffsets[template];
+                            ItemStack item = readTemplate(new DataInputStream(new ByteArrayInputStream(bytes, offset, bytes.length - offset)), dataVersion);
+                            item.setAmount(amount);
+                            return item;
+                        }
+                    }
+                    return null;
+                }
+
+                ItemStack[] items = decodeLegacy(bytes);
+                return slot >= 0 && slot < items.length ? items[slot] : null;
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+            return null;
+        } else {
+            throw new IllegalArgumentException("Bytes cannot be null");
+        }
+    }
+
+    /**
+     * Replaces specific slots in the binary representation of an ItemStack array.
+     * <p>
+     * In the binary format, only the replaced slots are encoded: the templates and records
+     * of all other slots are copied over as they are, without decoding them, and templates
+     * no longer used by any slot are dropped. If the array is in the legacy format or an
+     * older binary format, was encoded by a different server version, or a replacement
+     * can't be represented by the binary format, the whole array is decoded, updated and
+     * encoded again instead.
+     * <p>
+     * The array grows if a replaced slot lies beyond its end, and never shrinks. In a paged
+     * container, only the pages holding replaced slots are spliced, and pages are added as needed.
+     *
+     * @param bytes   The encoded items.
+     * @param changes The new item of each replaced slot, with null or AIR items emptying the slot.
+     * @return The encoded items with the slots replaced.
+     * @throws IllegalArgumentException If the provided bytes or changes are null, or a slot is negative.
+     * @throws IllegalStateException    If the array has to be decoded but couldn't be, as encoding it again would empty all other slots.
+     * @see #decodeSlot(byte[], int)
+     * @since 1.1.0
+     */
+    public static byte[] splice(byte[] bytes, Map<Integer, ItemStack> changes) {
+        if (bytes != null && changes != null) {
+            for (int slot : changes.keySet()) {
+                if (slot < 0) {
+                    throw new IllegalArgumentException(String.format("Slot cannot be negative: %1$s", slot));
+                }
+            }
+
+            if (isPagedFormat(bytes)) {
+                Pages pages;
+                try {
+                    pages = readPages(bytes);
+                } catch (IOException e) {
+                    throw new IllegalStateException(String.format("Couldn't read pages to replace slots in: %1$s", e.getMessage()), e);
+                }
+                return splicePages(pages, changes);
+            }
+
+            try {
+                if (isBinaryFormat(bytes)) {
+                    return spliceBinary(bytes, changes);
+                }
+            } catch (Exception e) {
+                // The other slots can't be copied over as they are, e.g. as they were encoded by a different server version, so all of them are encoded again.
+                e.printStackTrace();
+            }
+
+            return encodeBytes(replace(bytes, changes));
+        } else {
+            throw new IllegalArgumentException("Bytes and changes cannot be null");
+        }
+    }
+
+    /**
+     * Encodes an ItemStack array, splitting it into pages if it spans more than one page.
+     * <p>
+     * Arrays that fit in a single page are encoded as by {@link #encodeBytes(ItemStack[])}.
+     * Larger arrays are encoded as a paged container, with each page encoded independently.
+     *
+     * @param obj        The ItemStack array to encode.
+     * @param pageSlots  The number of slots in each page.
+     * @return The encoded items.
+     * @throws IllegalArgumentException If the provided page size isn't positive.
+     * @see #decodePage(byte[], int, int)
+     * @since 1.1.0
+     */
+    public static byte[] encodePages(ItemStack[] obj, int pageSlots) {
+        if (pageSlots > 0) {
+            if (obj == null || obj.length <= pageSlots) {
+                return encodeBytes(obj);
+            }
+
+            List<byte[]> pages = new ArrayList<>();
+            for (int i = 0; i < obj.length; i += pageSlots) {
+                pages.add(encodeBytes(Arrays.copyOfRange(obj, i, i + pageSlots)));
+            }
+            return writePages(new Pages(pageSlots, pages));
+        } else {
+            throw new IllegalArgumentException("Page slots must be positive");
+        }
+    }
+
+    /**
+     * Decodes a single page of an encoded ItemStack array.
+     * <p>
+     * In a paged container with the same page size, only the requested page is decoded.
+     * Otherwise, the whole array is decoded and the page is cut out of it.
+     *
+     * @param bytes     The encoded items.
+     * @param page      The index of the page to decode.
+     * @param pageSlots The number of slots in each page.
+     * @return The items in the page, which may be shorter than a page if the array ends within it.
+     * @throws IllegalArgumentException If the provided bytes are null, the page is negative or the page size isn't positive.
+     * @see #encodePages(ItemStack[], int)
+     * @since 1.1.0
+     */
+    public static ItemStack[] decodePage(byte[] bytes, int page, int pageSlots) {
+        if (bytes != null && page >= 0 && pageSlots > 0) {
+            if (isPagedFormat(bytes)) {
+                try {
+                    Pages pages = readPages(bytes);
+                    if (pages.page_slots == pageSlots) {
+                        return page < pages.pages.size() ? decodeBytes(pages.pages.get(page)) : new ItemStack[]{};
+                    }
+                } catch (IOException e) {
+                    e.printStackTrace();
+                    return new ItemStack[]{};
+                }
+            }
+
+            ItemStack[] items = decodeBytes(bytes);
+            int from = Math.min(items.length, page * pageSlots);
+            return Arrays.copyOfRange(items, from, Math.min(items.length, from + pageSlots));
+        } else {
+            throw new IllegalArgumentException("Bytes cannot be null, page cannot be negative and page slots must be positive");
+        }
+    }
+
+    /**
+     * Replaces specific slots in an encoded ItemStack array, splitting it into pages once it spans more than one page.
+     * <p>
+     * Arrays that keep fitting in a single page are spliced as by {@link #splice(byte[], Map)}.
+     * When a replaced slot lies beyond the first page, a single-page array becomes the first
+     * page of a paged container without being decoded. A paged container with a different
+     * page size is decoded and split into pages of the requested size.
+     *
+     * @param bytes     The encoded items.
+     * @param changes   The new item of each replaced slot, with null or AIR items emptying the slot.
+     * @param pageSlots The number of slots in each page.
+     * @return The encoded items with the slots replaced.
+     * @throws IllegalArgumentException If the provided bytes or changes are null, a slot is negative, or the page size isn't positive.
+     * @throws IllegalStateException    If the array has to be decoded but couldn't be, as encoding it again would empty all other slots.
+     * @since 1.1.0
+     */
+    public static byte[] splice(byte[] bytes, Map<Integer, ItemStack> changes, int pageSlots) {
+        if (bytes != null && changes != null && pageSlots > 0) {
+            boolean paged = isPagedFormat(bytes);
+            if (!paged && changes.keySet().stream().allMatch(slot -> slot < pageSlots)) {
+                return splice(bytes, changes);
+            }
+
+            try {
+                if (paged) {
+                    Pages pages = readPages(bytes);
+                    if (pages.page_slots == pageSlots) {
+                        return splice(bytes, changes);
+                    }
+                } else if (isBinaryFormat(bytes) && getArrayLength(bytes) <= pageSlots) {
+                    for (int slot : changes.keySet()) {
+                        if (slot < 0) {
+                            throw new IllegalArgumentException(String.format("Slot cannot be negative: %1$s", slot));
+                        }
+                    }
+                    return splicePages(new Pages(pageSlots, new ArrayList<>(List.of(bytes))), changes);
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+
+            return encodePages(replace(bytes, changes), pageSlots);
+        } else {
+            throw new IllegalArgumentException("Bytes and changes cannot be null and page slots must be positive");
+        }
+    }
+
+    private static byte[] spliceBinary(byte[] bytes, Map<Integer, ItemStack> changes) throws IOException {
+        bytes = decompress(bytes);
+        ByteArrayInputStream inputStream = new ByteArrayInputStream(bytes);
+        DataInputStream dataInput = new DataInputStream(inputStream);
+        if (readHeader(dataInput) != FORMAT_VERSION) {
+            throw new IOException("Items were encoded in an older format version");
+        }
+        if (readVarInt(dataInput) != getDataVersion()) {
+            throw new IOException("Items were encoded by a different server version");
+        }
+        int length = readVarInt(dataInput);
+
+        // Templates are kept as their raw encoded bytes, so that unchanged templates are copied without being decoded.
+        List<byte[]> templates = new ArrayList<>();
+        Map<ByteBuffer, Integer> templateIndexes = new HashMap<>();
+        int templateCount = readVarInt(dataInput);
+        for (int i = 0; i < templateCount; i++) {
+            int start = bytes.length - inputStream.available();
+            skipTemplate(dataInput);
+            byte[] template = Arrays.copyOfRange(bytes, start, bytes.length - inputStream.available());
+            templates.add(template);
+            templateIndexes.putIfAbsent(ByteBuffer.wrap(template), i);
+        }
+
+        Map<Integer, int[]> records = new TreeMap<>();
+        int count = readVarInt(dataInput);
+        for (int i = 0; i < count; i++) {
+            int slot = readVarInt(dataInput);
+            int template = readVarInt(dataInput);
+            int amount = readVarInt(dataInput);
+            if (!changes.containsKey(slot)) {
+                records.put(slot, new int[]{template, amount});
+            }
+        }
+
+        for (Map.Entry<Integer, ItemStack> change : changes.entrySet()) {
+            ItemStack item = change.getValue();
+            if (item != null && item.getType() != Material.AIR) {
+                Buffers buffers = getBuffers();
+                buffers.template.reset();
+                writeTemplate(buffers.template_output, item);
+                byte[] template = buffers.template.toByteArray();
+
+                Integer index = templateIndexes.get(ByteBuffer.wrap(template));
+                if (index == null) {
+                    index = templates.size();
+                    templates.add(template);
+                    templateIndexes.put(ByteBuffer.wrap(template), index);
+                }
+                records.put(change.getKey(), new int[]{index, item.getAmount()});
+            }
+            length = Math.max(length, change.getKey() + 1);
+        }
+
+        int[] remappedTemplates = new int[templates.size()];
+        Arrays.fill(remappedTemplates, -1);
+        List<byte[]> usedTemplates = new ArrayList<>();
+        for (int[] record : records.values()) {
+            if (remappedTemplates[record[0]] == -1) {
+                remappedTemplates[record[0]] = usedTemplates.size();
+                usedTemplates.add(templates.get(record[0]));
+            }
+        }
+
+        Buffers buffers = getBuffers();
+        buffers.output.reset();
+        DataOutputStream dataOutput = buffers.data_output;
+        writeHeader(dataOutput);
+        writeVarInt(dataOutput, length);
+        writeVarInt(dataOutput, usedTemplates.size());
+        for (byte[] template : usedTemplates) {
+            dataOutput.write(template);
+        }
+        writeVarInt(dataOutput, records.size());
+        for (Map.Entry<Integer, int[]> record : records.entrySet()) {
+            writeVarInt(dataOutput, record.getKey());
+            writeVarInt(dataOutput, remappedTemplates[record.getValue()[0]]);
+            writeVarInt(dataOutput, record.getValue()[1]);
+        }
+
+        return toEncodedBytes(buffers);
+    }
+
+    /**
+     * Checks if an encoded ItemStack array is in the cold tier.
+     *
+     * @param bytes The encoded items.
+     * @return {@code true} if the items were moved to the cold tier and not rehydrated since, {@code false} otherwise.
+     * @throws IllegalArgumentException If the provided bytes are null.
+     * @see #toColdBytes(byte[])
+     * @since 1.1.0
+     */
+    public static boolean isCold(byte[] bytes) {
+        if (bytes != null) {
+            if (isPagedFormat(bytes)) {
+                try {
+                    return readPages(bytes).pages.stream().allMatch(ItemStackCodec::isCold);
+                } catch (IOException e) {
+                    return false;
+                }
+            }
+            return isBinaryFormat(bytes) && bytes.length >= HEADER_LENGTH && (bytes[MAGIC.length + 1] & FLAG_COLD) != 0;
+        } else {
+            throw new IllegalArgumentException("Bytes cannot be null");
+        }
+    }
+
+    /**
+     * Moves an encoded ItemStack array to the cold tier.
+     * <p>
+     * The items are compressed at the highest compression level, regardless of the compression
+     * threshold, trading slower encoding for the smallest data. This suits items that are
+     * rarely decoded again. The items themselves aren't decoded. Paged containers have each
+     * of their pages moved.
+     *
+     * @param bytes The encoded items.
+     * @return The items in the cold tier, or the provided bytes if they are already cold or in the legacy format.
+     * @throws IllegalArgumentException If the provided bytes are null.
+     * @see #toHotBytes(byte[])
+     * @since 1.1.0
+     */
+    public static byte[] toColdBytes(byte[] bytes) {
+        if (bytes != null) {
+            if (isPagedFormat(bytes)) {
+                return mapPages(bytes, ItemStackCodec::toColdBytes);
+            }
+            if (!isBinaryFormat(bytes) || isCold(bytes)) {
+                return bytes;
+            }
+            try {
+                byte[] uncompressed = decompress(bytes);
+
+                Deflater deflater = cold_deflaters.get();
+                deflater.reset();
+                deflater.setInput(uncompressed, HEADER_LENGTH, uncompressed.length - HEADER_LENGTH);
+                deflater.finish();
+
+                Buffers buffers = getBuffers();
+                Buffer compressed = buffers.compressed;
+                compressed.reset();
+                compressed.write(uncompressed, 0, HEADER_LENGTH);
+                writeVarInt(buffers.compressed_output, uncompressed.length - HEADER_LENGTH);
+                byte[] chunk = buffers.chunk;
+                while (!deflater.finished()) {
+                    compressed.write(chunk, 0, deflater.deflate(chunk));
+                }
+                compressed.array()[MAGIC.length + 1] |= FLAG_DEFLATE | FLAG_COLD;
+                return release(buffers, compressed.toByteArray());
+            } catch (IOException e) {
+                e.printStackTrace();
+                return bytes;
+            }
+        } else {
+            throw new IllegalArgumentException("Bytes cannot be null");
+        }
+    }
+
+    /**
+     * Rehydrates an encoded ItemStack array from the cold tier.
+     * <p>
+     * The items are inflated and compressed again following the compression threshold,
+     * as if they were just encoded. The items themselves aren't decoded.
+     *
+     * @param bytes The encoded items.
+     * @return The rehydrated items, or the provided bytes if they aren't cold.
+     * @throws IllegalArgumentException If the provided bytes are null.
+     * @see #toColdBytes(byte[])
+     * @since 1.1.0
+     */
+    public static byte[] toHotBytes(byte[] bytes) {
+        if (bytes != null) {
+            if (isPagedFormat(bytes)) {
+                return mapPages(bytes, ItemStackCodec::toHotBytes);
+            }
+            if (!isCold(bytes)) {
+                return bytes;
+            }
+            try {
+                byte[] uncompressed = decompress(bytes);
+                Buffers buffers = getBuffers();
+                buffers.output.reset();
+                buffers.output.write(uncompressed, 0, uncompressed.length);
+                return toEncodedBytes(buffers);
+            } catch (IOException e) {
+                e.printStackTrace();
+                return bytes;
+            }
+        } else {
+            throw new IllegalArgumentException("Bytes cannot be null");
+        }
+    }
+
+    /**
+     * Retrieves the size an encoded ItemStack array has when uncompressed, without inflating it.
+     *
+     * @param bytes The encoded items.
+     * @return The uncompressed size in bytes, or the size of the provided bytes if they aren't compressed.
+     * @throws IllegalArgumentException If the provided bytes are null.
+     * @since 1.1.0
+     */
+    public static int getUncompressedLength(byte[] bytes) {
+        if (bytes != null) {
+            if (isPagedFormat(bytes)) {
+                try {
+                    return bytes.length + readPages(bytes).pages.stream().mapToInt(page -> getUncompressedLength(page) - page.length).sum();
+                } catch (IOException e) {
+                    return bytes.length;
+                }
+            }
+            if (!isBinaryFormat(bytes) || bytes.length < HEADER_LENGTH || (bytes[MAGIC.length + 1] & FLAG_DEFLATE) == 0) {
+                return bytes.length;
+            }
+            try {
+                return HEADER_LENGTH + readVarInt(new DataInputStream(new ByteArrayInputStream(bytes, HEADER_LENGTH, bytes.length - HEADER_LENGTH)));
+            } catch (IOException e) {
+                return bytes.length;
+            }
+        } else {
+            throw new IllegalArgumentException("Bytes cannot be null");
+        }
+    }
+
+    /**
+     * Retrieves the number of leading bytes of an encoded ItemStack array that {@link #isCold(byte[])}
+     * and {@link #getUncompressedLength(byte[])} read, so that a backpack store only has to load those.
+     * <p>
+     * This doesn't apply to paged containers, as each of their pages has its own header.
+     *
+     * @return The length of the header and the uncompressed length that follows it in a compressed array.
+     * @see #isPaged(byte[])
+     * @since 1.1.0
+     */
+    public static int getSummaryLength() {
+        return HEADER_LENGTH + 5; // The longest VarInt takes up 5 bytes.
+    }
+
+    /**
+     * Checks if an encoded ItemStack array is a paged container.
+     *
+     * @param bytes The encoded items, or at least their first bytes.
+     * @return {@code true} if the items were split into pages, {@code false} otherwise.
+     * @throws IllegalArgumentException If the provided bytes are null.
+     * @see #encodePages(ItemStack[], int)
+     * @since 1.1.0
+     */
+    public static boolean isPaged(byte[] bytes) {
+        if (bytes != null) {
+            return isPagedFormat(bytes);
+        } else {
+            throw new IllegalArgumentException("Bytes cannot be null");
+        }
+    }
+
+    /**
+     * Sets the size in bytes above which encoded arrays are compressed.
+     * <p>
+     * Compression trades some CPU time when encoding and decoding for smaller item data,
+     * which keeps player data files and the item packets of large backpacks small.
+     * Arrays that don't shrink when compressed are always stored uncompressed.
+     *
+     * @param threshold The compression threshold in bytes, or a negative value to disable compression.
+     * @since 1.1.0
+     */
+    public static void setCompressionThreshold(int threshold) {
+        compression_threshold = threshold;
+    }
+
+    /**
+     * Copies the binary representation of an ItemStack array out of the output buffer,
+     * compressing it first if it exceeds the compression threshold.
+     * <p>
+     * When compressed, the magic header and format version are kept as they are, the flags
+     * are marked as compressed, and the rest is replaced by its uncompressed length followed
+     * by its Deflate-compressed bytes. The result is the only array allocated.
+     *
+     * @param buffers The buffers of the current thread, with the uncompressed representation in the output buffer.
+     * @return The compressed binary representation, or the uncompressed one if compression doesn't apply or doesn't save space.
+     * @throws IOException If the compressed length can't be written.
+     */
+    private static byte[] toEncodedBytes(Buffers buffers) throws IOException {
+        Buffer output = buffers.output;
+        int threshold = compression_threshold;
+        if (threshold < 0 || output.size() < threshold) {
+            return release(buffers, output.toByteArray());
+        }
+
+        Deflater deflater = deflaters.get();
+        deflater.reset();
+        deflater.setInput(output.array(), HEADER_LENGTH, output.size() - HEADER_LENGTH);
+        deflater.finish();
+
+        Buffer compressed = buffers.compressed;
+        compressed.reset();
+        compressed.write(output.array(), 0, HEADER_LENGTH);
+        writeVarInt(buffers.compressed_output, output.size() - HEADER_LENGTH);
+        byte[] chunk = buffers.chunk;
+        while (!deflater.finished()) {
+            compressed.write(chunk, 0, deflater.deflate(chunk));
+            if (compressed.size() >= output.size()) {
+                return release(buffers, output.toByteArray());
+            }
+        }
+        compressed.array()[MAGIC.length + 1] |= FLAG_DEFLATE;
+        return release(buffers, compressed.toByteArray());
+    }
+
+    /**
+     * Inflates the binary representation of an ItemStack array if it's compressed.
+     *
+     * @param bytes The possibly compressed binary representation.
+     * @return The uncompressed binary representation, or the provided bytes if they aren't compressed.
+     * @throws IOException If the compressed data is malformed.
+     */
+    private static byte[] decompress(byte[] bytes) throws IOException {
+        if (bytes.length < HEADER_LENGTH || (bytes[MAGIC.length + 1] & FLAG_DEFLATE) == 0) {
+            return bytes;
+        }
+
+        ByteArrayInputStream inputStream = new ByteArrayInputStream(bytes, HEADER_LENGTH, bytes.length - HEADER_LENGTH);
+        int length = readVarInt(new DataInputStream(inputStream));
+        int offset = bytes.length - inputStream.available();
+
+        byte[] inflated = new byte[HEADER_LENGTH + length];
+        System.arraycopy(bytes, 0, inflated, 0, HEADER_LENGTH);
+        inflated[MAGIC.length + 1] &= ~(FLAG_DEFLATE | FLAG_COLD);
+
+        Inflater inflater = inflaters.get();
+        inflater.reset();
+        inflater.setInput(bytes, offset, bytes.length - offset);
+        try {
+            int position = HEADER_LENGTH;
+            while (position < inflated.length) {
+                int inflatedLength = inflater.inflate(inflated, position, inflated.length - position);
+                if (inflatedLength == 0 && (inflater.finished() || inflater.needsInput())) {
+                    throw new IOException("Compressed data is truncated");
+                }
+                position += inflatedLength;
+            }
+        } catch (DataFormatException e) {
+            throw new IOException(e);
+        }
+        return inflated;
+    }
+
+    /**
+     * Retrieves the encoding of an empty array, which is returned when encoding fails.
+     * <p>
+     * The encoding is built once and copied, so falling back to it never encodes anything again.
+     *
+     * @return A copy of the encoding of an empty array.
+     */
+    private static byte[] encodeEmpty() {
+        if (empty_encoding == null) {
+            try {
+                empty_encoding = encodeBinary(new ItemStack[]{});
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        return empty_encoding.clone();
+    }
+
+    private static Buffers getBuffers() {
+        return buffers.get();
+    }
+
+    /**
+     * Drops the buffers of the current thread if encoding an unusually large array made them grow
+     * too much, so that they don't stay allocated for the lifetime of the thread.
+     *
+     * @param buffers The buffers of the current thread.
+     * @param result  The encoded bytes to return.
+     * @return The provided encoded bytes.
+     */
+    private static byte[] release(Buffers buffers, byte[] result) {
+        if (buffers.output.capacity() > MAX_RETAINED_BUFFER_SIZE || buffers.compressed.capacity() > MAX_RETAINED_BUFFER_SIZE || buffers.meta.capacity() > MAX_RETAINED_BUFFER_SIZE || buffers.template.capacity() > MAX_RETAINED_BUFFER_SIZE) {
+            ItemStackCodec.buffers.remove();
+        }
+        return result;
+    }
+
+    private static boolean isPagedFormat(byte[] bytes) {
+        if (bytes.length < PAGED_MAGIC.length) {
+            return false;
+        }
+        for (int i = 0; i < PAGED_MAGIC.length; i++) {
+            if (bytes[i] != PAGED_MAGIC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads the page size and the encoded pages of a paged container.
+     *
+     * @param bytes The paged container.
+     * @return The pages of the container.
+     * @throws IOException If the container is malformed or its format version isn't supported.
+     */
+    private static Pages readPages(byte[] bytes) throws IOException {
+        DataInputStream dataInput = new DataInputStream(new ByteArrayInputStream(bytes));
+        dataInput.skipNBytes(PAGED_MAGIC.length);
+        int version = dataInput.readUnsignedByte();
+        if (version > PAGED_FORMAT_VERSION) {
+            throw new IOException(String.format("Unsupported paged format version: %1$s", version));
+        }
+        int pageSlots = readVarInt(dataInput);
+        if (pageSlots <= 0) {
+            throw new IOException(String.format("Invalid page size: %1$s", pageSlots));
+        }
+        int count = readVarInt(dataInput);
+        List<byte[]> pages = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            byte[] page = new byte[readVarInt(dataInput)];
+            dataInput.readFully(page);
+            pages.add(page);
+        }
+        return new Pages(pageSlots, pages);
+    }
+
+    /**
+     * Writes a paged container, or the only page if there's just one.
+     *
+     * @param pages The pages to write.
+     * @return The paged container.
+     */
+    private static byte[] writePages(Pages pages) {
+        if (pages.pages.size() == 1) {
+            return pages.pages.get(0);
+        }
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(pages.pages.stream().mapToInt(page -> page.length + 5).sum() + 16);
+        DataOutputStream dataOutput = new DataOutputStream(outputStream);
+        try {
+            dataOutput.write(PAGED_MAGIC);
+            dataOutput.writeByte(PAGED_FORMAT_VERSION);
+            writeVarInt(dataOutput, pages.page_slots);
+            writeVarInt(dataOutput, pages.pages.size());
+            for (byte[] page : pages.pages) {
+                writeVarInt(dataOutput, page.length);
+                dataOutput.write(page);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * Splices changes into the pages holding the changed slots, adding empty pages as needed.
+     *
+     * @param pages   The pages to splice, which are updated in place.
+     * @param changes The new item of each replaced slot, addressed across all pages.
+     * @return The paged container with the slots replaced.
+     */
+    private static byte[] splicePages(Pages pages, Map<Integer, ItemStack> changes) {
+        Map<Integer, Map<Integer, ItemStack>> pageChanges = new TreeMap<>();
+        for (Map.Entry<Integer, ItemStack> change : changes.entrySet()) {
+            pageChanges.computeIfAbsent(change.getKey() / pages.page_slots, page -> new HashMap<>()).put(change.getKey() % pages.page_slots, change.getValue());
+        }
+        for (Map.Entry<Integer, Map<Integer, ItemStack>> entry : pageChanges.entrySet()) {
+            while (pages.pages.size() <= entry.getKey()) {
+                pages.pages.add(encodeEmpty());
+            }
+            pages.pages.set(entry.getKey(), splice(pages.pages.get(entry.getKey()), entry.getValue()));
+        }
+        return writePages(pages);
+    }
+
+    /**
+     * Decodes an ItemStack array in any of the supported formats.
+     *
+     * @param bytes The encoded items.
+     * @return The decoded items.
+     * @throws IOException            If the items are malformed.
+     * @throws ClassNotFoundException If an item in the legacy format refers to an unknown class.
+     */
+    private static ItemStack[] decodeAny(byte[] bytes) throws IOException, ClassNotFoundException {
+        if (isPagedFormat(bytes)) {
+            return decodePaged(bytes);
+        }
+        return isBinaryFormat(bytes) ? decodeBinary(decompress(bytes)) : decodeLegacy(bytes);
+    }
+
+    /**
+     * Decodes an ItemStack array and replaces specific slots, for splices that can't copy the other slots over as they are.
+     *
+     * @param bytes   The encoded items.
+     * @param changes The new item of each replaced slot.
+     * @return The decoded items with the slots replaced, grown to hold every replaced slot.
+     * @throws IllegalStateException If the items couldn't be decoded.
+     */
+    private static ItemStack[] replace(byte[] bytes, Map<Integer, ItemStack> changes) {
+        ItemStack[] items;
+        try {
+            items = decodeAny(bytes);
+        } catch (Exception e) {
+            throw new IllegalStateException(String.format("Couldn't decode items to replace slots in: %1$s", e.getMessage()), e);
+        }
+        int length = Math.max(items.length, changes.keySet().stream().mapToInt(slot -> slot + 1).max().orElse(0));
+        items = Arrays.copyOf(items, length);
+        for (Map.Entry<Integer, ItemStack> change : changes.entrySet()) {
+            items[change.getKey()] = change.getValue();
+        }
+        return items;
+    }
+
+    /**
+     * Decodes every page of a paged container into a single array, with each page padded to the page size.
+     *
+     * @param bytes The paged container.
+     * @return The items of all pages.
+     * @throws IOException            If the container or one of its pages is malformed.
+     * @throws ClassNotFoundException If an item in a page in the legacy format refers to an unknown class.
+     */
+    private static ItemStack[] decodePaged(byte[] bytes) throws IOException, ClassNotFoundException {
+        Pages pages = readPages(bytes);
+        ItemStack[] items = new ItemStack[pages.page_slots * pages.pages.size()];
+        for (int i = 0; i < pages.pages.size(); i++) {
+            ItemStack[] page = decodeAny(pages.pages.get(i));
+            System.arraycopy(page, 0, items, i * pages.page_slots, Math.min(page.length, pages.page_slots));
+        }
+        return items;
+    }
+
+    /**
+     * Re-encodes every page of a paged container.
+     *
+     * @param bytes    The paged container.
+     * @param function The function re-encoding a page.
+     * @return The paged container with its pages re-encoded, or the provided bytes if the container is malformed.
+     */
+    private static byte[] mapPages(byte[] bytes, UnaryOperator<byte[]> function) {
+        try {
+            Pages pages = readPages(bytes);
+            pages.pages.replaceAll(function);
+            return writePages(pages);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return bytes;
+        }
+    }
+
+    /**
+     * Reads the array length of the binary representation of an ItemStack array.
+     *
+     * @param bytes The encoded items, in the binary format.
+     * @return The length of the encoded array.
+     * @throws IOException If the header is malformed.
+     */
+    private static int getArrayLength(byte[] bytes) throws IOException {
+        DataInputStream dataInput = new DataInputStream(new ByteArrayInputStream(decompress(bytes)));
+        readHeader(dataInput);
+        readVarInt(dataInput); // Data version.
+        return readVarInt(dataInput);
+    }
+
+    private static boolean isBinaryFormat(byte[] bytes) {
+        if (bytes.length < MAGIC.length) {
+            return false;
+        }
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (bytes[i] != MAGIC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte[] encodeBinary(ItemStack[] obj) throws IOException {
+        List<ItemStack> templates = new ArrayList<>();
+        Map<Material, List<Integer>> templates_by_material = new EnumMap<>(Material.class);
+        int[] slotTemplates = new int[obj.length];
+        int count = 0;
+
+        for (int slot = 0; slot < obj.length; slot++) {
+            ItemStack item = obj[slot];
+            slotTemplates[slot] = -1;
+            if (item != null && item.getType() != Material.AIR) {
+                List<Integer> indexes = templates_by_material.computeIfAbsent(item.getType(), material -> new ArrayList<>(1));
+                for (int index : indexes) {
+                    if (templates.get(index).isSimilar(item)) {
+                        slotTemplates[slot] = index;
+                        break;
+                    }
+                }
+                if (slotTemplates[slot] == -1) {
+                    slotTemplates[slot] = templates.size();
+                    indexes.add(templates.size());
+                    templates.add(item);
+                }
+                count++;
+            }
+        }
+
+        Buffers buffers = getBuffers();
+        buffers.output.reset();
+        DataOutputStream dataOutput = buffers.data_output;
+
+        writeHeader(dataOutput);
+        writeVarInt(dataOutput, obj.length);
+        writeVarInt(dataOutput, templates.size());
+        for (ItemStack template : templates) {
+            writeTemplate(dataOutput, template);
+        }
+        writeVarInt(dataOutput, count);
+        for (int slot = 0; slot < obj.length; slot++) {
+            if (slotTemplates[slot] != -1) {
+                writeVarInt(dataOutput, slot);
+                writeVarInt(dataOutput, slotTemplates[slot]);
+                writeVarInt(dataOutput, obj[slot].getAmount());
+            }
+        }
+
+        return toEncodedBytes(buffers);
+    }
+
+    private static ItemStack[] decodeBinary(byte[] bytes) throws IOException {
+        DataInputStream dataInput = new DataInputStream(new ByteArrayInputStream(bytes));
+        int version = readHeader(dataInput);
+        int dataVersion = readVarInt(dataInput);
+
+        ItemStack[] items = new ItemStack[readVarInt(dataInput)];
+
+        if (version == 1) {
+            int count = readVarInt(dataInput);
+            for (int i = 0; i < count; i++) {
+                int slot = readVarInt(dataInput);
+                items[slot] = readItem(dataInput, dataVersion);
+            }
+        } else {
+            // Each template is decoded once, and slots sharing it get copies of the decoded item instead of deserializing its meta again.
+            ItemStack[] templates = new ItemStack[readVarInt(dataInput)];
+            for (int i = 0; i < templates.length; i++) {
+                templates[i] = readTemplate(dataInput, dataVersion);
+            }
+            boolean[] used = new boolean[templates.length];
+
+            int count = readVarInt(dataInput);
+            for (int i = 0; i < count; i++) {
+                int slot = readVarInt(dataInput);
+                int template = readVarInt(dataInput);
+                ItemStack item = used[template] ? templates[template].clone() : templates[template];
+                used[template] = true;
+                item.setAmount(readVarInt(dataInput));
+                items[slot] = item;
+            }
+        }
+
+        dataInput.close();
+        return items;
+    }
+
+    private static void writeHeader(DataOutputStream out) throws IOException {
+        out.write(MAGIC);
+        out.writeByte(FORMAT_VERSION);
+        out.writeByte(0); // Flags, set by toEncodedBytes(Buffers) if the data gets compressed.
+        writeVarInt(out, getDataVersion());
+    }
+
+    /**
+     * Reads the magic header, format version and flags of the binary format.
+     *
+     * @param in The stream to read from, positioned at the magic header.
+     * @return The format version the items were encoded in.
+     * @throws IOException If the format version or flags aren't supported.
+     */
+    private static int readHeader(DataInputStream in) throws IOException {
+        in.skipNBytes(MAGIC.length);
+
+        int version = in.readUnsignedByte();
+        if (version > FORMAT_VERSION) {
+            throw new IOException(String.format("Unsupported format version: %1$s", version));
+        }
+        int flags = in.readUnsignedByte();
+        if (flags != 0) {
+            // Compressed data is inflated before its header is read, so any flag left is unknown.
+            throw new IOException(String.format("Unsupported format flags: %1$s", flags));
+        }
+        return version;
+    }
+
+    /**
+     * Writes the material name and length-prefixed meta blob of an item, which are shared by all similar items.
+     *
+     * @param out  The stream to write to.
+     * @param item The item to write the template of.
+     * @throws IOException If the item's meta can't be represented by the binary format.
+     */
+    private static void writeTemplate(DataOutputStream out, ItemStack item) throws IOException {
+        writeString(out, item.getType().name());
+        if (item.hasItemMeta()) {
+            Buffers buffers = getBuffers();
+            buffers.meta.reset();
+            writeValue(buffers.meta_output, item.getItemMeta());
+            writeVarInt(out, buffers.meta.size());
+            buffers.meta.writeTo(out);
+        } else {
+            writeVarInt(out, 0);
+        }
+    }
+
+    /**
+     * Reads an item template, as a single item.
+     *
+     * @param in          The stream to read from, positioned at the template's material name.
+     * @param dataVersion The data version of the server that encoded the template.
+     * @return The decoded item, with an amount of one.
+     * @throws IOException If the template is malformed.
+     */
+    private static ItemStack readTemplate(DataInputStream in, int dataVersion) throws IOException {
+        Material material = getMaterial(readString(in), dataVersion);
+        int metaLength = readVarInt(in);
+
+        ItemStack item = new ItemStack(material);
+        if (metaLength > 0) {
+            Object meta = readValue(in);
+            if (meta instanceof ItemMeta) {
+                item.setItemMeta((ItemMeta) meta);
+            } else {
+                throw new IOException("Meta blob does not contain item meta");
+            }
+        }
+        return item;
+    }
+
+    private static void skipTemplate(DataInputStream in) throws IOException {
+        in.skipNBytes(readVarInt(in)); // Material name.
+        in.skipNBytes(readVarInt(in)); // Meta blob.
+    }
+
+    /**
+     * Reads the record of a single item in format version 1, following its slot index.
+     *
+     * @param in          The stream to read from, positioned at the item's amount.
+     * @param dataVersion The data version of the server that encoded the item.
+     * @return The decoded item.
+     * @throws IOException If the record is malformed.
+     */
+    private static ItemStack readItem(DataInputStream in, int dataVersion) throws IOException {
+        int amount = readVarInt(in);
+        ItemStack item = readTemplate(in, dataVersion);
+        item.setAmount(amount);
+        return item;
+    }
+
+    private static byte[] encodeLegacy(ItemStack[] obj) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        BukkitObjectOutputStream dataOutput = new BukkitObjectOutputStream(outputStream);
+
+        dataOutput.writeInt(obj.length);
+
+        for (ItemStack itemStack : obj) {
+            dataOutput.writeObject(itemStack);
+        }
+
+        dataOutput.close();
+        return outputStream.toByteArray();
+    }
+
+    private static ItemStack[] decodeLegacy(byte[] bytes) throws IOException, ClassNotFoundException {
+        BukkitObjectInputStream dataInput = new BukkitObjectInputStream(new ByteArrayInputStream(bytes));
+        ItemStack[] items = new ItemStack[dataInput.readInt()];
+
+        for (int i = 0; i < items.length; i++) {
+            items[i] = (ItemStack) dataInput.readObject();
+        }
+
+        dataInput.close();
+        return items;
+    }
+
+    @SuppressWarnings("deprecation")
+    private static int getDataVersion() {
+        return Bukkit.getUnsafe().getDataVersion();
+    }
+
+    @SuppressWarnings("deprecation")
+    private static Material getMaterial(String name, int dataVersion) throws IOException {
+        Material material = dataVersion == getDataVersion() ? Material.getMaterial(name) : Bukkit.getUnsafe().getMaterial(name, dataVersion);
+        if (material == null) {
+            throw new IOException(String.format("Unknown material: %1$s", name));
+        }
+        return material;
+    }
+
+    private static void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(TAG_NULL);
+        } else if (value instanceof String) {
+            out.writeByte(TAG_STRING);
+            writeString(out, (String) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte(TAG_BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof Integer) {
+            out.writeByte(TAG_INT);
+            out.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            out.writeByte(TAG_LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof Double) {
+            out.writeByte(TAG_DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (value instanceof Float) {
+            out.writeByte(TAG_FLOAT);
+            out.writeFloat((Float) value);
+        } else if (value instanceof Short) {
+            out.writeByte(TAG_SHORT);
+            out.writeShort((Short) value);
+        } else if (value instanceof Byte) {
+            out.writeByte(TAG_BYTE);
+            out.writeByte((Byte) value);
+        } else if (value instanceof Collection<?> collection) {
+            out.writeByte(TAG_LIST);
+            writeVarInt(out, collection.size());
+            for (Object element : collection) {
+                writeValue(out, element);
+            }
+        } else if (value instanceof Map<?, ?> map) {
+            out.writeByte(TAG_MAP);
+            writeMap(out, map);
+        } else if (value instanceof ConfigurationSerializable serializable) {
+            out.writeByte(TAG_SERIALIZABLE);
+            writeString(out, ConfigurationSerialization.getAlias(serializable.getClass()));
+            writeMap(out, serializable.serialize());
+        } else {
+            throw new IOException(String.format("Unsupported value type: %1$s", value.getClass().getName()));
+        }
+    }
+
+    private static void writeMap(DataOutputStream out, Map<?, ?> map) throws IOException {
+        writeVarInt(out, map.size());
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            if (entry.getKey() instanceof String key) {
+                writeString(out, key);
+                writeValue(out, entry.getValue());
+            } else {
+                throw new IOException("Map keys must be strings");
+            }
+        }
+    }
+
+    private static Object readValue(DataInputStream in) throws IOException {
+        int tag = in.readUnsignedByte();
+        switch (tag) {
+            case TAG_NULL:
+                return null;
+            case TAG_STRING:
+                return readString(in);
+            case TAG_BOOLEAN:
+                return in.readBoolean();
+            case TAG_INT:
+                return in.readInt();
+            case TAG_LONG:
+                return in.readLong();
+            case TAG_DOUBLE:
+                return in.readDouble();
+            case TAG_FLOAT:
+                return in.readFloat();
+            case TAG_SHORT:
+                return in.readShort();
+            case TAG_BYTE:
+                return in.readByte();
+            case TAG_LIST:
+                int size = readVarInt(in);
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(in));
+                }
+                return list;
+            case TAG_MAP:
+                return readMap(in);
+            case TAG_SERIALIZABLE:
+                String alias = readString(in);
+                Class<? extends ConfigurationSerializable> clazz = ConfigurationSerialization.getClassByAlias(alias);
+                if (clazz == null) {
+                    throw new IOException(String.format("Unknown serializable alias: %1$s", alias));
+                }
+                ConfigurationSerializable object = ConfigurationSerialization.deserializeObject(readMap(in), clazz);
+                if (object == null) {
+                    throw new IOException(String.format("Couldn't deserialize %1$s", alias));
+                }
+                return object;
+            default:
+                throw new IOException(String.format("Unknown value tag: %1$s", tag));
+        }
+    }
+
+    private static Map<String, Object> readMap(DataInputStream in) throws IOException {
+        int size = readVarInt(in);
+        Map<String, Object> map = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) {
+            String key = readString(in);
+            map.put(key, readValue(in));
+        }
+        return map;
+    }
+
+    private static void writeString(DataOutputStream out, String str) throws IOException {
+        byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[readVarInt(in)];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("VarInt is too long");
+    }
+
+    /**
+     * The page size and encoded pages of a paged container.
+     */
+    private static final class Pages {
+        private final int page_slots;
+
+        private final List<byte[]> pages;
+
+        private Pages(int page_slots, List<byte[]> pages) {
+            this.page_slots = page_slots;
+            this.pages = pages;
+        }
+    }
+
+    /**
+     * A growable byte buffer that exposes its backing array, so that its contents can be
+     * read without copying them.
+     */
+    private static final class Buffer extends ByteArrayOutputStream {
+        private Buffer(int size) {
+            super(size);
+        }
+
+        private byte[] array() {
+            return buf;
+        }
+
+        private int capacity() {
+            return buf.length;
+        }
+    }
+
+    /**
+     * The reusable buffers of a single thread.
+     * <p>
+     * Encoding only ever writes to these buffers, which keep their capacity between calls,
+     * so that the only array allocated in the steady state is the final encoded output.
+     */
+    private static final class Buffers {
+        private final Buffer output = new Buffer(1024);
+        private final DataOutputStream data_output = new DataOutputStream(output);
+        private final Buffer compressed = new Buffer(1024);
+        private final DataOutputStream compressed_output = new DataOutputStream(compressed);
+        private final Buffer meta = new Buffer(256);
+        private final DataOutputStream meta_output = new DataOutputStream(meta);
+        private final Buffer template = new Buffer(256);
+        private final DataOutputStream template_output = new DataOutputStream(template);
+        private final byte[] chunk = new byte[4096];
+    }
 }
@@ -19,11 +19,16 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.net.MalformedURLException;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * Utility class providing helper methods for the BackpacksPlus plugin.
@@ -42,10 +47,27 @@ import java.util.regex.Pattern;
  * @since 1.0.0
  */
 public class Utils {
-    private static final Pattern HEX_PATTERN = Pattern.compile("#[a-fA-F0-9]{6}");
+    private static final String COLOR_CODES = "0123456789AaBbCcDdEeFfKkLlMmNnOoRrXx";
+
+    private static final String HEX_DIGITS = "0123456789AaBbCcDdEeFf";
+
+    private static final int MAX_COLORIFIED_MESSAGES = 1024;
+
+    private static final Map<String, String> colorified_messages = Collections.synchronizedMap(new LinkedHashMap<>(MAX_COLORIFIED_MESSAGES, 0.75F, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > MAX_COLORIFIED_MESSAGES;
+        }
+    });
+
+    private static final Map<String, PlayerProfile> skin_profiles = new HashMap<>();
 
     /**
      * Converts Minecraft color codes in a string from '&amp;' notation to the internal format.
+     * <p>
+     * Hex colors in '#rrggbb' notation are converted as well. Both notations are translated
+     * in a single pass over the string, and the results for recently converted strings are
+     * remembered, so repeated messages and lore lines are only translated once.
      *
      * @param msg The string containing color codes with '&amp;' notation.
      * @return The string with converted Minecraft color codes.
@@ -56,19 +78,61 @@ public class Utils {
     @Nonnull
     public static String colorify(String msg) {
         if (msg != null) {
-            Matcher matcher = HEX_PATTERN.matcher(msg);
-            while (matcher.find()) {
-                String hexCode = matcher.group();
-                net.md_5.bungee.api.ChatColor color = net.md_5.bungee.api.ChatColor.of(hexCode);
-                msg = msg.replace(hexCode, color.toString());
+            String colorified = colorified_messages.get(msg);
+            if (colorified == null) {
+                colorified = translateColorCodes(msg);
+                colorified_messages.put(msg, colorified);
             }
-
-            return ChatColor.translateAlternateColorCodes('&', msg);
+            return colorified;
         } else {
             throw new IllegalArgumentException("Message cannot be null");
         }
     }
 
+    /**
+     * Translates '&amp;' color codes and '#rrggbb' hex colors into the internal format in a single pass.
+     * <p>
+     * Hex colors become the '&sect;x' sequence followed by each hex digit, in its original case, prefixed
+     * with '&sect;', and '&amp;' followed by a valid color code character becomes '&sect;'
+     * followed by the lowercase code character. Any other characters are copied unchanged.
+     *
+     * @param msg The string containing color codes.
+     * @return The string with translated color codes.
+     * @since 1.1.0
+     */
+    @Nonnull
+    private static String translateColorCodes(String msg) {
+        int length = msg.length();
+        StringBuilder builder = new StringBuilder(length + 16);
+        int i = 0;
+        while (i < length) {
+            char c = msg.charAt(i);
+            if (c == '#' && i + 7 <= length && isHexColor(msg, i + 1)) {
+                builder.append(ChatColor.COLOR_CHAR).append('x');
+                for (int j = i + 1; j < i + 7; j++) {
+                    builder.append(ChatColor.COLOR_CHAR).append(msg.charAt(j));
+                }
+                i += 7;
+            } else if (c == '&' && i + 1 < length && COLOR_CODES.indexOf(msg.charAt(i + 1)) > -1) {
+                builder.append(ChatColor.COLOR_CHAR).append(Character.toLowerCase(msg.charAt(i + 1)));
+                i += 2;
+            } else {
+                builder.append(c);
+                i++;
+            }
+        }
+        return builder.toString();
+    }
+
+    private static boolean isHexColor(String msg, int start) {
+        for (int i = start; i < start + 6; i++) {
+            if (HEX_DIGITS.indexOf(msg.charAt(i)) == -1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * Logs a severe error message and initiates server shutdown.
      * <p>
@@ -251,64 +315,80 @@ public class Utils {
      * The texture parameter should be the texture ID hash from Minecraft's
      * texture database, not the full URL or base64 encoded string.
      * The method will construct the proper URL format internally.
+     * <p>
+     * The profile holding the texture is created once per texture ID and reused.
      *
      * @param meta    The SkullMeta to modify.
      * @param texture The texture ID to apply.
      * @return The modified SkullMeta.
      * @throws IllegalArgumentException If the provided meta or texture are null.
      * @throws IllegalStateException    If the provided texture URL is invalid.
+     * @see #getSkinProfile(String)
      * @since 1.0.0
      */
     @Nonnull
     public static SkullMeta applySkinTexture(SkullMeta meta, String texture) {
         if (meta != null && texture != null) {
-            PlayerProfile playerProfile = Bukkit.getServer().createPlayerProfile(UUID.randomUUID());
-            PlayerTextures textures = playerProfile.getTextures();
-            try {
-                textures.setSkin(URI.create(String.format("http://textures.minecraft.net/texture/%1$s", texture)).toURL());
-            } catch (MalformedURLException e) {
-                throw new IllegalStateException(e);
-            }
-            playerProfile.setTextures(textures);
-            meta.setOwnerProfile(playerProfile);
+            meta.setOwnerProfile(getSkinProfile(texture));
             return meta;
         } else {
             throw new IllegalArgumentException("Skull Meta and Texture cannot be null");
         }
     }
 
+    /**
+     * Retrieves the player profile holding a specific skin texture.
+     * <p>
+     * Profiles are created on first use and cached by texture ID, so the texture URL is
+     * only built and parsed once per texture. Each profile has a stable UUID derived from
+     * its texture ID, which lets clients cache the skin instead of downloading it again
+     * for every new skull item.
+     * <p>
+     * The returned profile is shared and must not be modified. Skull metas copy the
+     * profile when it is applied to them.
+     *
+     * @param texture The texture ID of the skin.
+     * @return The player profile holding the skin texture.
+     * @throws IllegalArgumentException If the provided texture is null.
+     * @throws IllegalStateException    If the provided texture URL is invalid.
+     * @since 1.1.0
+     */
+    @Nonnull
+    public static PlayerProfile getSkinProfile(String texture) {
+        if (texture != null) {
+            return skin_profiles.computeIfAbsent(texture, key -> {
+                PlayerProfile playerProfile = Bukkit.getServer().createPlayerProfile(UUID.nameUUIDFromBytes(key.getBytes(StandardCharsets.UTF_8)));
+                PlayerTextures textures = playerProfile.getTextures();
+                try {
+                    textures.setSkin(URI.create(String.format("http://textures.minecraft.net/texture/%1$s", key)).toURL());
+                } catch (MalformedURLException e) {
+                    throw new IllegalStateException(e);
+                }
+                playerProfile.setTextures(textures);
+                return playerProfile;
+            });
+        } else {
+            throw new IllegalArgumentException("Texture cannot be null");
+        }
+    }
+
     /**
      * Checks if a player has sufficient quantities of specific items.
      * <p>
      * Items are matched using the isSimilar() method, which ensures that not only
      * the material type matches, but also metadata like durability, enchantments,
-     * and custom NBT data.
+     * and custom NBT data. Cost entries for similar items are added together, and
+     * empty or air entries are ignored.
      *
      * @param player The player to check.
      * @param items  Array of ItemStacks representing required items and quantities.
      * @return {@code true} if player has all required items, {@code false} otherwise.
-     * @throws IllegalArgumentException If the provided player or items array is null.
      * @see #removeAmountOfItems(Player, ItemStack[])
      * @since 1.0.0
      */
     public static boolean hasAmountOfItems(Player player, ItemStack[] items) {
         if (player != null && items != null) {
-            int totalFound = 0;
-            for (ItemStack i : items) {
-                if (i != null && i.getType() != Material.AIR) {
-                    int totalFound2 = 0;
-                    for (ItemStack item : player.getInventory().getContents()) {
-                        if (item != null && item.isSimilar(i)) {
-                            totalFound2 += item.getAmount();
-                            if (totalFound2 >= i.getAmount()) {
-                                totalFound++;
-                                break;
-                            }
-                        }
-                    }
-                }
-            }
-            return totalFound == items.length;
+            return planItemRemoval(player.getInventory().getContents(), items) != null;
         }
         return false;
     }
@@ -316,52 +396,109 @@ public class Utils {
     /**
      * Removes specific quantities of items from a player's inventory.
      * <p>
-     * The method first checks if the player has all the required items using
-     * {@link #hasAmountOfItems(Player, ItemStack[])} before attempting removal.
-     * It then iterates through the inventory, removing items that match the
-     * specified ItemStacks until the required quantities are met.
+     * The removal is planned in a single pass over the inventory, and is only applied,
+     * as a single batch of slot updates, if the player has all the required items.
+     * Items are removed from the lowest slots first.
      *
      * @param player The player to remove items from.
      * @param items  Array of ItemStacks to remove.
      * @return {@code true} if all items were removed successfully.
-     * @throws IllegalArgumentException If the provided player or items array is null.
      * @see #hasAmountOfItems(Player, ItemStack[])
      * @since 1.0.0
      */
     public static boolean removeAmountOfItems(Player player, ItemStack[] items) {
-        if ((player != null && items != null) && (hasAmountOfItems(player, items))) {
-            int totalRemoved = 0;
-            for (ItemStack i : items) {
-                if (i != null && i.getType() != Material.AIR) {
-                    int remainingToRemove = i.getAmount();
-                    Inventory inventory = player.getInventory();
+        if (player != null && items != null) {
+            Inventory inventory = player.getInventory();
+            ItemStack[] contents = inventory.getContents();
+            int[] amounts = planItemRemoval(contents, items);
+            if (amounts != null) {
+                for (int slot = 0; slot < contents.length; slot++) {
+                    ItemStack item = contents[slot];
+                    if (item != null && amounts[slot] != item.getAmount()) {
+                        if (amounts[slot] > 0) {
+                            item.setAmount(amounts[slot]);
+                            inventory.setItem(slot, item);
+                        } else {
+                            inventory.setItem(slot, null);
+                        }
+                    }
+                }
+                new BukkitRunnable() {
+                    public void run() {
+                        player.updateInventory();
+                    }
+                }.runTaskLater(BackpacksPlus.getPlugin(), 1L);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Plans the removal of specific quantities of items from inventory contents.
+     * <p>
+     * Similar cost entries are first merged into a histogram of required amounts, grouped
+     * by material so each inventory slot is only compared against costs of its own material.
+     * The contents are then scanned once, taking from each matching slot until every
+     * required amount has been met.
+     *
+     * @param contents The inventory contents to remove the items from.
+     * @param items    Array of ItemStacks to remove.
+     * @return The amount left in each slot after the removal, or null if the contents don't hold all the items.
+     * @since 1.1.0
+     */
+    @Nullable
+    private static int[] planItemRemoval(ItemStack[] contents, ItemStack[] items) {
+        List<ItemStack> costs = new ArrayList<>();
+        List<Integer> required = new ArrayList<>();
+        Map<Material, List<Integer>> costs_by_material = new EnumMap<>(Material.class);
+        for (ItemStack cost : items) {
+            if (cost != null && cost.getType() != Material.AIR && cost.getAmount() > 0) {
+                List<Integer> indexes = costs_by_material.computeIfAbsent(cost.getType(), material -> new ArrayList<>(1));
+                Integer index = null;
+                for (int i : indexes) {
+                    if (costs.get(i).isSimilar(cost)) {
+                        index = i;
+                        break;
+                    }
+                }
+                if (index != null) {
+                    required.set(index, required.get(index) + cost.getAmount());
+                } else {
+                    indexes.add(costs.size());
+                    costs.add(cost);
+                    required.add(cost.getAmount());
+                }
+            }
+        }
 
-                    for (int slot = 0; slot < inventory.getSize(); slot++) {
-                        ItemStack item = inventory.getItem(slot);
-                        if (item != null && item.isSimilar(i)) {
-                            if (item.getAmount() > remainingToRemove) {
-                                item.setAmount(item.getAmount() - remainingToRemove);
-                                totalRemoved++;
-                                break;
-                            } else {
-                                remainingToRemove -= item.getAmount();
-                                inventory.setItem(slot, new ItemStack(Material.AIR));
-                                if (remainingToRemove == 0) {
-                                    totalRemoved++;
-                                    break;
-                                }
+        int[] remaining = required.stream().mapToInt(Integer::intValue).toArray();
+        int unmet = remaining.length;
+        int[] amounts = new int[contents.length];
+        for (int slot = 0; slot < contents.length; slot++) {
+            ItemStack item = contents[slot];
+            if (item == null) {
+                continue;
+            }
+            amounts[slot] = item.getAmount();
+
+            if (unmet > 0) {
+                List<Integer> indexes = costs_by_material.get(item.getType());
+                if (indexes != null) {
+                    for (int i : indexes) {
+                        if (remaining[i] > 0 && costs.get(i).isSimilar(item)) {
+                            int taken = Math.min(remaining[i], amounts[slot]);
+                            amounts[slot] -= taken;
+                            remaining[i] -= taken;
+                            if (remaining[i] == 0) {
+                                unmet--;
                             }
+                            break;
                         }
                     }
                 }
             }
-            new BukkitRunnable() {
-                public void run() {
-                    player.updateInventory();
-                }
-            }.runTaskLater(BackpacksPlus.getPlugin(), 1L);
-            return totalRemoved == items.length;
         }
-        return false;
+        return unmet == 0 ? amounts : null;
     }
 }
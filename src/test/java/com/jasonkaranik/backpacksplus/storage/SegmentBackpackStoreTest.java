@@ -0,0 +1,184 @@
+package com.jasonkaranik.backpacksplus.storage;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Server;
+import org.bukkit.scheduler.BukkitScheduler;
+import org.bukkit.scheduler.BukkitTask;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Saves enough backpacks to fill more than one segment, compacts the store and checks that
+ * every backpack loads the same before and after the store is created again from its segments.
+ */
+class SegmentBackpackStoreTest {
+    private static final int CONTENTS_LENGTH = 1024;
+
+    /**
+     * Enough backpacks for their records to fill the first segment and start a second one.
+     */
+    private static final int BACKPACKS = 70_000;
+
+    @TempDir
+    Path directory;
+
+    private final Random random = new Random(0);
+
+    private final Map<String, byte[]> expected = new HashMap<>();
+
+    /**
+     * Sets up a stand-in server whose scheduler never runs tasks, so the tests compact the store themselves.
+     */
+    @BeforeAll
+    static void setUpServer() {
+        if (Bukkit.getServer() == null) {
+            BukkitTask task = proxy(BukkitTask.class, null);
+            BukkitScheduler scheduler = proxy(BukkitScheduler.class, task);
+            Logger logger = Logger.getLogger(SegmentBackpackStoreTest.class.getName());
+            Bukkit.setServer((Server) Proxy.newProxyInstance(Server.class.getClassLoader(), new Class<?>[]{Server.class}, (proxy, method, args) -> switch (method.getName()) {
+                case "getScheduler" -> scheduler;
+                case "getLogger" -> logger;
+                case "getName", "getVersion", "getBukkitVersion" -> "BackpacksPlus Tests";
+                default -> null;
+            }));
+        }
+    }
+
+    @Test
+    void compactedSegmentsAreScannedAgain() throws IOException {
+        String[] ids = new String[BACKPACKS];
+        SegmentBackpackStore store = new SegmentBackpackStore(directory);
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = UUID.randomUUID().toString();
+            save(store, ids[i]);
+        }
+        for (int i = 0; i < ids.length / 2; i++) {
+            save(store, ids[i]);
+        }
+        for (int i = 0; i < 1000; i++) {
+            delete(store, ids[ids.length / 2 + i]);
+        }
+
+        // The first segment is compacted twice, so that its first generation is replaced by a second one.
+        store.compact();
+        assertTrue(getSegmentFiles().contains("segment-0-1.dat"));
+        for (int i = ids.length / 2; i < ids.length * 3 / 4; i++) {
+            save(store, ids[i]);
+        }
+        store.compact();
+        assertTrue(getSegmentFiles().contains("segment-0-2.dat"));
+        store.sync();
+        assertLoads(store);
+        store.close();
+
+        SegmentBackpackStore reopened = new SegmentBackpackStore(directory);
+        assertLoads(reopened);
+        assertEquals(getLiveBytes(), reopened.getSegmentBytes() - reopened.getDeadBytes());
+        reopened.close();
+        assertFalse(getSegmentFiles().contains("segment-0.dat"));
+        assertFalse(getSegmentFiles().contains("segment-0-1.dat"));
+    }
+
+    @Test
+    void segmentsWithoutLiveRecordsAreDeleted() throws IOException {
+        String[] ids = new String[BACKPACKS];
+        SegmentBackpackStore store = new SegmentBackpackStore(directory);
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = UUID.randomUUID().toString();
+            save(store, ids[i]);
+        }
+        for (String id : ids) {
+            save(store, id);
+        }
+
+        store.compact();
+        assertFalse(getSegmentFiles().stream().anyMatch(name -> name.startsWith("segment-0")));
+        assertLoads(store);
+        store.close();
+
+        SegmentBackpackStore reopened = new SegmentBackpackStore(directory);
+        assertLoads(reopened);
+        reopened.close();
+    }
+
+    @Test
+    void earlierGenerationsLeftBehindAreDeleted() throws IOException {
+        String[] ids = new String[BACKPACKS];
+        SegmentBackpackStore store = new SegmentBackpackStore(directory);
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = UUID.randomUUID().toString();
+            save(store, ids[i]);
+        }
+        for (int i = 0; i < ids.length / 2; i++) {
+            save(store, ids[i]);
+        }
+        Path first_generation = directory.resolve("segment-0.dat");
+        byte[] records = Files.readAllBytes(first_generation);
+        store.compact();
+        store.close();
+
+        // As if the first generation couldn't be deleted while it was still mapped.
+        Files.write(first_generation, records);
+        SegmentBackpackStore reopened = new SegmentBackpackStore(directory);
+        assertLoads(reopened);
+        reopened.close();
+        assertFalse(Files.exists(first_generation));
+    }
+
+    private void save(BackpackStore store, String id) {
+        byte[] contents = new byte[CONTENTS_LENGTH];
+        random.nextBytes(contents);
+        store.save(id, contents);
+        expected.put(id, contents);
+    }
+
+    private void delete(BackpackStore store, String id) {
+        store.delete(id);
+        expected.remove(id);
+    }
+
+    private void assertLoads(BackpackStore store) {
+        assertEquals(expected.keySet(), store.getIDs());
+        for (Map.Entry<String, byte[]> entry : expected.entrySet()) {
+            assertArrayEquals(entry.getValue(), store.load(entry.getKey()));
+        }
+    }
+
+    private long getLiveBytes() {
+        return expected.values().stream().mapToLong(contents -> 24 + contents.length).sum();
+    }
+
+    private Set<String> getSegmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString()).collect(Collectors.toSet());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Object task) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> switch (method.getName()) {
+            case "hashCode" -> System.identityHashCode(proxy);
+            case "equals" -> proxy == args[0];
+            default -> task != null && method.getReturnType().isInstance(task) ? task : null;
+        });
+    }
+}